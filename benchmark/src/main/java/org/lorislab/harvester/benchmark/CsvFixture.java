@@ -0,0 +1,158 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.Random;
+import org.dbunit.dataset.csv.CsvDataSet;
+import org.lorislab.harvester.dataset.StreamingCsvDataSet;
+
+/**
+ * The synthetic CSV fixture. The fixture contains one table {@value #TABLE}
+ * with the primary key column and the given number of the data columns. The
+ * data columns rotate the integer, string, decimal and timestamp types.
+ *
+ * @author Andrej_Petras
+ */
+public final class CsvFixture {
+
+    /**
+     * The table name.
+     */
+    public static final String TABLE = "BENCH";
+
+    /**
+     * The random seed.
+     */
+    private static final long SEED = 42L;
+
+    /**
+     * The base timestamp.
+     */
+    private static final long BASE_TIME = Timestamp.valueOf("2015-01-01 00:00:00").getTime();
+
+    /**
+     * The default constructor.
+     */
+    private CsvFixture() {
+        // empty constructor.
+    }
+
+    /**
+     * Generates the fixture directory.
+     *
+     * @param directory the fixture directory.
+     * @param width the number of the data columns.
+     * @param rows the number of the rows.
+     * @throws IOException if the method fails.
+     */
+    public static void generate(Path directory, int width, int rows) throws IOException {
+        Files.write(directory.resolve(CsvDataSet.TABLE_ORDERING_FILE), Collections.singletonList(TABLE), StandardCharsets.UTF_8);
+
+        Random random = new Random(SEED);
+        try (BufferedWriter writer = Files.newBufferedWriter(StreamingCsvDataSet.getTableFile(directory, TABLE), StandardCharsets.UTF_8)) {
+            writer.write("ID");
+            for (int i = 1; i <= width; i++) {
+                writer.write(",C" + i);
+            }
+            writer.newLine();
+            for (int row = 0; row < rows; row++) {
+                writer.write(Integer.toString(row));
+                for (int i = 1; i <= width; i++) {
+                    writer.write(',');
+                    writer.write(value(random, row, i));
+                }
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Creates the fixture table.
+     *
+     * @param connection the connection.
+     * @param width the number of the data columns.
+     * @throws SQLException if the method fails.
+     */
+    public static void createTable(Connection connection, int width) throws SQLException {
+        StringBuilder sql = new StringBuilder();
+        sql.append("CREATE TABLE ").append(TABLE).append(" (ID BIGINT PRIMARY KEY");
+        for (int i = 1; i <= width; i++) {
+            sql.append(", C").append(i).append(' ').append(type(i));
+        }
+        sql.append(')');
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + TABLE);
+            statement.execute(sql.toString());
+        }
+    }
+
+    /**
+     * Gets the SQL type of the column.
+     *
+     * @param column the column index.
+     * @return the SQL type of the column.
+     */
+    private static String type(int column) {
+        switch (column % 4) {
+            case 0:
+                return "INT";
+            case 1:
+                return "VARCHAR(64)";
+            case 2:
+                return "DECIMAL(18,4)";
+            default:
+                return "TIMESTAMP";
+        }
+    }
+
+    /**
+     * Creates the CSV value of the column.
+     *
+     * @param random the random generator.
+     * @param row the row index.
+     * @param column the column index.
+     * @return the CSV value.
+     */
+    private static String value(Random random, int row, int column) {
+        if (random.nextInt(50) == 0) {
+            return "null";
+        }
+        switch (column % 4) {
+            case 0:
+                return Integer.toString(random.nextInt());
+            case 1:
+                if (row % 16 == 0) {
+                    return "\"value, " + row + "\"";
+                }
+                return "value-" + row + "-" + column;
+            case 2:
+                return BigDecimal.valueOf(random.nextInt(100000000), 4).toPlainString();
+            default:
+                return new Timestamp(BASE_TIME + random.nextInt(1000000) * 1000L).toString();
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.benchmark;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.lorislab.harvester.util.DbUnitExecutorUtil;
+import org.lorislab.harvester.util.HarvesterProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The import benchmark. Each invocation imports the whole synthetic fixture
+ * into the in-memory H2 database with the operation. The primary result is
+ * the number of the imports per second, the {@code rows} secondary result is
+ * the number of the rows per second.
+ *
+ * @author Andrej_Petras
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ImportBenchmark {
+
+    /**
+     * The operations which need the rows in the table.
+     */
+    private static final Set<String> PREFILLED = new HashSet<>(Arrays.asList("refresh", "update", "delete", "deleteAll"));
+
+    /**
+     * The number of the data columns.
+     */
+    @Param({"10", "50"})
+    public int width;
+
+    /**
+     * The number of the rows.
+     */
+    @Param({"100000"})
+    public int rows;
+
+    /**
+     * The import operation.
+     */
+    @Param({"insert", "fastInsert", "bulk", "refresh", "cleanInsert", "deleteAll"})
+    public String operation;
+
+    /**
+     * The JDBC batch size.
+     */
+    @Param({"500"})
+    public int batchSize;
+
+    /**
+     * The fixture directory.
+     */
+    private Path directory;
+
+    /**
+     * The connection.
+     */
+    private Connection connection;
+
+    /**
+     * The harvester properties.
+     */
+    private Properties properties;
+
+    /**
+     * Generates the fixture and creates the table.
+     *
+     * @throws Exception if the method fails.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("harvester-benchmark");
+        CsvFixture.generate(directory, width, rows);
+        connection = DriverManager.getConnection("jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1");
+        CsvFixture.createTable(connection, width);
+        properties = new Properties();
+        properties.setProperty(HarvesterProperties.BATCH_SIZE, Integer.toString(batchSize));
+    }
+
+    /**
+     * Prepares the table for the operation.
+     *
+     * @throws Exception if the method fails.
+     */
+    @Setup(Level.Invocation)
+    public void prepare() throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("TRUNCATE TABLE " + CsvFixture.TABLE);
+        }
+        if (PREFILLED.contains(operation)) {
+            DbUnitExecutorUtil.execute(connection, "bulk", directory, properties);
+        }
+    }
+
+    /**
+     * Imports the fixture.
+     *
+     * @param counter the row counter.
+     * @throws Exception if the method fails.
+     */
+    @Benchmark
+    public void load(RowCounter counter) throws Exception {
+        DbUnitExecutorUtil.execute(connection, operation, directory, properties);
+        counter.rows += rows;
+    }
+
+    /**
+     * Drops the table and deletes the fixture.
+     *
+     * @throws Exception if the method fails.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + CsvFixture.TABLE);
+        }
+        connection.close();
+        delete(directory);
+    }
+
+    /**
+     * Deletes the directory.
+     *
+     * @param directory the directory.
+     * @throws IOException if the method fails.
+     */
+    static void delete(Path directory) throws IOException {
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.benchmark;
+
+import java.io.Closeable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableIterator;
+import org.dbunit.dataset.RowOutOfBoundsException;
+import org.dbunit.dataset.csv.CsvDataSet;
+import org.lorislab.harvester.dataset.StreamingCsvDataSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The parse benchmark. Each invocation reads all values of the synthetic
+ * fixture through the data set without the database. The result of the
+ * {@code streaming} data set is the parse part of the {@link ImportBenchmark}
+ * with the same parameters, the rest is the write part.
+ *
+ * @author Andrej_Petras
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParseBenchmark {
+
+    /**
+     * The number of the data columns.
+     */
+    @Param({"10", "50"})
+    public int width;
+
+    /**
+     * The number of the rows.
+     */
+    @Param({"100000"})
+    public int rows;
+
+    /**
+     * The data set implementation.
+     */
+    @Param({"streaming", "dbunit"})
+    public String dataSet;
+
+    /**
+     * The fixture directory.
+     */
+    private Path directory;
+
+    /**
+     * Generates the fixture.
+     *
+     * @throws Exception if the method fails.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("harvester-benchmark");
+        CsvFixture.generate(directory, width, rows);
+    }
+
+    /**
+     * Reads all values of the fixture.
+     *
+     * @param counter the row counter.
+     * @param blackhole the black hole.
+     * @throws Exception if the method fails.
+     */
+    @Benchmark
+    public void parse(RowCounter counter, Blackhole blackhole) throws Exception {
+        IDataSet tmp;
+        if ("dbunit".equals(dataSet)) {
+            tmp = new CsvDataSet(directory.toFile());
+        } else {
+            tmp = new StreamingCsvDataSet(directory);
+        }
+        try {
+            ITableIterator iterator = tmp.iterator();
+            while (iterator.next()) {
+                ITable table = iterator.getTable();
+                Column[] columns = table.getTableMetaData().getColumns();
+                int row = 0;
+                try {
+                    for (;; row++) {
+                        for (Column column : columns) {
+                            blackhole.consume(table.getValue(row, column.getColumnName()));
+                        }
+                    }
+                } catch (RowOutOfBoundsException ex) {
+                    // end of the table
+                }
+                counter.rows += row;
+            }
+        } finally {
+            if (tmp instanceof Closeable) {
+                ((Closeable) tmp).close();
+            }
+        }
+    }
+
+    /**
+     * Deletes the fixture.
+     *
+     * @throws Exception if the method fails.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        ImportBenchmark.delete(directory);
+    }
+}
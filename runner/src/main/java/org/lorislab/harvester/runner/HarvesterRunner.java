@@ -0,0 +1,227 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.runner;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+import org.lorislab.harvester.dataset.TableMetrics;
+import org.lorislab.harvester.util.DbUnitExecutorUtil;
+import org.lorislab.harvester.util.HarvesterProperties;
+import org.lorislab.harvester.util.ImportResult;
+
+/**
+ * The standalone harvester runner. The runner executes the operation for the
+ * datasource directories without the application server, the data source is
+ * created from the JDBC URL. The JDBC URL, the user and the password are read
+ * from the harvester properties of the directory and could be overwritten by
+ * the command line arguments.
+ *
+ * <pre>
+ * java -cp harvester-runner.jar:driver.jar org.lorislab.harvester.runner.HarvesterRunner -o cleanInsert -u jdbc:h2:mem:test dir1 dir2
+ * </pre>
+ *
+ * @author Andrej_Petras
+ */
+public final class HarvesterRunner {
+
+    private static final Logger LOGGER = Logger.getLogger(HarvesterRunner.class.getName());
+
+    /**
+     * The default operation.
+     */
+    private static final String DEFAULT_OPERATION = "insert";
+
+    /**
+     * The default constructor.
+     */
+    private HarvesterRunner() {
+        // empty constructor.
+    }
+
+    /**
+     * The main method.
+     *
+     * @param args the command line arguments.
+     */
+    public static void main(String[] args) {
+        String operation = DEFAULT_OPERATION;
+        String url = null;
+        String user = null;
+        String password = null;
+        List<Path> directories = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-o":
+                case "--operation":
+                    operation = argument(args, ++i);
+                    break;
+                case "-u":
+                case "--url":
+                    url = argument(args, ++i);
+                    break;
+                case "--user":
+                    user = argument(args, ++i);
+                    break;
+                case "--password":
+                    password = argument(args, ++i);
+                    break;
+                case "-h":
+                case "--help":
+                    usage();
+                    return;
+                default:
+                    directories.add(Paths.get(args[i]));
+            }
+        }
+        if (directories.isEmpty()) {
+            usage();
+            System.exit(2);
+        }
+        if (!DbUnitExecutorUtil.isOperation(operation)) {
+            System.err.println("Unknown operation: " + operation);
+            System.exit(2);
+        }
+
+        boolean failed = false;
+        for (Path directory : directories) {
+            long start = System.currentTimeMillis();
+            try {
+                ImportResult result = execute(operation, directory, url, user, password);
+                long rows = 0;
+                for (TableMetrics metrics : result.getTableMetrics()) {
+                    rows += metrics.getRows();
+                }
+                System.out.println(directory + ": " + operation + " tables: " + result.getTableMetrics().size()
+                        + " rows: " + rows + " skipped: " + result.getSkippedTables() + " time: " + (System.currentTimeMillis() - start) + " ms");
+            } catch (Exception ex) {
+                LOGGER.log(Level.FINEST, "Error: " + ex.getMessage(), ex);
+                System.err.println(directory + ": " + operation + " failed: " + ex);
+                failed = true;
+            }
+        }
+        if (failed) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Executes the operation for the datasource directory. The JDBC URL, the
+     * user and the password overwrite the values of the harvester properties
+     * if they are not {@code null}.
+     *
+     * @param operation the operation.
+     * @param directory the datasource directory.
+     * @param url the JDBC URL or {@code null}.
+     * @param user the user or {@code null}.
+     * @param password the password or {@code null}.
+     * @return the import result.
+     * @throws Exception if the method fails.
+     */
+    public static ImportResult execute(String operation, Path directory, String url, String user, String password) throws Exception {
+        Properties properties = HarvesterProperties.getHarvesterProperties(directory);
+        if (url != null) {
+            properties.setProperty(HarvesterProperties.URL, url);
+        }
+        if (user != null) {
+            properties.setProperty(HarvesterProperties.USER, user);
+        }
+        if (password != null) {
+            properties.setProperty(HarvesterProperties.PASSWORD, password);
+        }
+        String tmp = properties.getProperty(HarvesterProperties.URL);
+        if (tmp == null || tmp.isEmpty()) {
+            throw new IllegalArgumentException("Missing the JDBC URL for the directory " + directory);
+        }
+        DataSource dataSource = new DriverManagerDataSource(tmp,
+                properties.getProperty(HarvesterProperties.USER),
+                properties.getProperty(HarvesterProperties.PASSWORD));
+        return execute(operation, directory, dataSource, properties);
+    }
+
+    /**
+     * Executes the operation for the datasource directory.
+     *
+     * @param operation the operation.
+     * @param directory the datasource directory.
+     * @param dataSource the data source.
+     * @return the import result.
+     * @throws Exception if the method fails.
+     */
+    public static ImportResult execute(String operation, Path directory, DataSource dataSource) throws Exception {
+        return execute(operation, directory, dataSource, HarvesterProperties.getHarvesterProperties(directory));
+    }
+
+    /**
+     * Executes the operation for the datasource directory.
+     *
+     * @param operation the operation.
+     * @param directory the datasource directory.
+     * @param dataSource the data source.
+     * @param properties the harvester properties.
+     * @return the import result.
+     * @throws Exception if the method fails.
+     */
+    private static ImportResult execute(String operation, Path directory, DataSource dataSource, Properties properties) throws Exception {
+        if (!Files.isDirectory(directory)) {
+            throw new IllegalArgumentException("The data is not directory " + directory);
+        }
+        int tableParallelism = HarvesterProperties.getInteger(properties, HarvesterProperties.TABLE_PARALLELISM, 1);
+        if (tableParallelism > 1 && DbUnitExecutorUtil.isParallelOperation(operation)) {
+            ExecutorService executor = Executors.newFixedThreadPool(tableParallelism);
+            try {
+                return DbUnitExecutorUtil.executeParallel(dataSource, executor, tableParallelism, operation, directory, properties);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            return DbUnitExecutorUtil.execute(connection, operation, directory, properties);
+        }
+    }
+
+    /**
+     * Gets the value of the command line option.
+     *
+     * @param args the command line arguments.
+     * @param index the index of the value.
+     * @return the value of the command line option.
+     */
+    private static String argument(String[] args, int index) {
+        if (index >= args.length) {
+            System.err.println("Missing value of the option " + args[index - 1]);
+            usage();
+            System.exit(2);
+        }
+        return args[index];
+    }
+
+    /**
+     * Prints the usage.
+     */
+    private static void usage() {
+        System.out.println("Usage: HarvesterRunner [-o operation] [-u url] [--user user] [--password password] directory...");
+    }
+}
@@ -0,0 +1,354 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.dataset;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableIterator;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.RowOutOfBoundsException;
+
+/**
+ * The commit interval data set. The data set splits the tables of the
+ * delegate data set to the chunks of the configured number of rows and
+ * commits the connection when the iterator moves to the next chunk or after
+ * the configured number of tables. The DB-Unit operations execute all
+ * statements of the table before the iterator moves to the next table.
+ *
+ * @author Andrej_Petras
+ */
+public class CommitIntervalDataSet implements IDataSet {
+
+    /**
+     * The delegate data set.
+     */
+    private final IDataSet delegate;
+
+    /**
+     * The connection.
+     */
+    private final Connection connection;
+
+    /**
+     * The number of the rows per transaction.
+     */
+    private final int commitRows;
+
+    /**
+     * The number of the tables per transaction.
+     */
+    private final int commitTables;
+
+    /**
+     * The last chunk.
+     */
+    private ChunkTable last;
+
+    /**
+     * The description of the last commit.
+     */
+    private String lastCommit;
+
+    /**
+     * The number of the commits.
+     */
+    private int commits;
+
+    /**
+     * The default constructor.
+     *
+     * @param delegate the delegate data set.
+     * @param connection the connection.
+     * @param commitRows the number of the rows per transaction or {@code 0}.
+     * @param commitTables the number of the tables per transaction or
+     * {@code 0}.
+     */
+    public CommitIntervalDataSet(IDataSet delegate, Connection connection, int commitRows, int commitTables) {
+        this.delegate = delegate;
+        this.connection = connection;
+        this.commitRows = commitRows;
+        this.commitTables = commitTables;
+    }
+
+    /**
+     * Commits the connection.
+     *
+     * @throws SQLException if the method fails.
+     */
+    public void commit() throws SQLException {
+        connection.commit();
+        commits++;
+        if (last != null) {
+            lastCommit = last.toString();
+        }
+    }
+
+    /**
+     * Gets the description of the last commit.
+     *
+     * @return the table and the row range of the last commit or {@code null}
+     * if there was no commit.
+     */
+    public String getLastCommit() {
+        return lastCommit;
+    }
+
+    /**
+     * Gets the number of the commits.
+     *
+     * @return the number of the commits.
+     */
+    public int getCommits() {
+        return commits;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public String[] getTableNames() throws DataSetException {
+        return delegate.getTableNames();
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public ITableMetaData getTableMetaData(String tableName) throws DataSetException {
+        return delegate.getTableMetaData(tableName);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public ITable getTable(String tableName) throws DataSetException {
+        return delegate.getTable(tableName);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    @Deprecated
+    public ITable[] getTables() throws DataSetException {
+        return delegate.getTables();
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public ITableIterator iterator() throws DataSetException {
+        return new CommitIterator(delegate.iterator());
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public ITableIterator reverseIterator() throws DataSetException {
+        return new CommitIterator(delegate.reverseIterator());
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean isCaseSensitiveTableNames() {
+        return delegate.isCaseSensitiveTableNames();
+    }
+
+    /**
+     * The commit iterator.
+     */
+    private class CommitIterator implements ITableIterator {
+
+        /**
+         * The delegate iterator.
+         */
+        private final ITableIterator iterator;
+
+        /**
+         * The current chunk.
+         */
+        private ChunkTable current;
+
+        /**
+         * The number of the tables since the last commit.
+         */
+        private int tables;
+
+        /**
+         * The default constructor.
+         *
+         * @param iterator the delegate iterator.
+         */
+        CommitIterator(ITableIterator iterator) {
+            this.iterator = iterator;
+        }
+
+        /**
+         * {@inheritDoc }
+         */
+        @Override
+        public boolean next() throws DataSetException {
+            if (current != null) {
+                if (commitRows > 0 && current.isFull()) {
+                    commitQuietly();
+                    current = new ChunkTable(current.table, current.start + commitRows, commitRows);
+                    last = current;
+                    return true;
+                }
+                tables++;
+                if (commitRows > 0 || (commitTables > 0 && tables >= commitTables)) {
+                    commitQuietly();
+                    tables = 0;
+                }
+            }
+            if (!iterator.next()) {
+                current = null;
+                return false;
+            }
+            current = new ChunkTable(iterator.getTable(), 0, commitRows > 0 ? commitRows : Integer.MAX_VALUE);
+            last = current;
+            return true;
+        }
+
+        /**
+         * {@inheritDoc }
+         */
+        @Override
+        public ITableMetaData getTableMetaData() throws DataSetException {
+            return current.getTableMetaData();
+        }
+
+        /**
+         * {@inheritDoc }
+         */
+        @Override
+        public ITable getTable() throws DataSetException {
+            return current;
+        }
+
+        /**
+         * Commits the connection.
+         *
+         * @throws DataSetException if the method fails.
+         */
+        private void commitQuietly() throws DataSetException {
+            try {
+                commit();
+            } catch (SQLException ex) {
+                throw new DataSetException("Error commit the " + current, ex);
+            }
+        }
+    }
+
+    /**
+     * The chunk of the table rows.
+     */
+    private static class ChunkTable implements ITable {
+
+        /**
+         * The table.
+         */
+        private final ITable table;
+
+        /**
+         * The first row of the chunk in the table.
+         */
+        private final int start;
+
+        /**
+         * The maximum number of the rows in the chunk.
+         */
+        private final int size;
+
+        /**
+         * The number of the read rows.
+         */
+        private int read;
+
+        /**
+         * The default constructor.
+         *
+         * @param table the table.
+         * @param start the first row of the chunk in the table.
+         * @param size the maximum number of the rows in the chunk.
+         */
+        ChunkTable(ITable table, int start, int size) {
+            this.table = table;
+            this.start = start;
+            this.size = size;
+        }
+
+        /**
+         * Returns {@code true} if all rows of the chunk were read.
+         *
+         * @return {@code true} if all rows of the chunk were read.
+         */
+        boolean isFull() {
+            return read == size;
+        }
+
+        /**
+         * {@inheritDoc }
+         */
+        @Override
+        public ITableMetaData getTableMetaData() {
+            return table.getTableMetaData();
+        }
+
+        /**
+         * {@inheritDoc }
+         */
+        @Override
+        public int getRowCount() {
+            return Math.max(0, Math.min(size, table.getRowCount() - start));
+        }
+
+        /**
+         * {@inheritDoc }
+         */
+        @Override
+        public Object getValue(int row, String column) throws DataSetException {
+            if (row >= size) {
+                throw new RowOutOfBoundsException(row + " >= " + size);
+            }
+            Object result = table.getValue(start + row, column);
+            read = Math.max(read, row + 1);
+            return result;
+        }
+
+        /**
+         * Gets the table name and the row range of the chunk.
+         *
+         * @return the table name and the row range of the chunk.
+         */
+        @Override
+        public String toString() {
+            String name = table.getTableMetaData().getTableName();
+            if (read == 0) {
+                return "table " + name + " no rows after row " + start;
+            }
+            return "table " + name + " rows " + (start + 1) + "-" + (start + read);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.dataset;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPInputStream;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorInputStream;
+
+/**
+ * The compressed CSV cursor. The file is decompressed in the stream directly
+ * into the {@link CsvRecordReader} without the temporary file. The gzip
+ * ({@value #GZIP_EXTENSION}), bzip2 ({@value #BZIP2_EXTENSION}) and the
+ * framed LZ4 ({@value #LZ4_EXTENSION}) files are supported.
+ *
+ * @author Andrej_Petras
+ */
+public class CompressedCsvCursor extends CsvRecordReader {
+
+    /**
+     * The gzip file extension.
+     */
+    public static final String GZIP_EXTENSION = ".gz";
+
+    /**
+     * The bzip2 file extension.
+     */
+    public static final String BZIP2_EXTENSION = ".bz2";
+
+    /**
+     * The framed LZ4 file extension.
+     */
+    public static final String LZ4_EXTENSION = ".lz4";
+
+    /**
+     * The supported compressed file extensions.
+     */
+    private static final String[] EXTENSIONS = {GZIP_EXTENSION, BZIP2_EXTENSION, LZ4_EXTENSION};
+
+    /**
+     * The buffer size of the compressed input.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The file channel of the compressed input.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The size of the compressed file.
+     */
+    private final long size;
+
+    /**
+     * The default constructor.
+     *
+     * @param file the compressed CSV file.
+     * @throws IOException if the method fails.
+     */
+    public CompressedCsvCursor(Path file) throws IOException {
+        this(file, FileChannel.open(file, StandardOpenOption.READ));
+    }
+
+    /**
+     * Creates the cursor for the opened file channel.
+     *
+     * @param file the compressed CSV file.
+     * @param channel the file channel.
+     * @throws IOException if the method fails.
+     */
+    private CompressedCsvCursor(Path file, FileChannel channel) throws IOException {
+        super(createReader(file, channel));
+        this.channel = channel;
+        this.size = channel.size();
+    }
+
+    /**
+     * Gets the supported compressed file extensions.
+     *
+     * @return the supported compressed file extensions.
+     */
+    public static String[] getExtensions() {
+        return EXTENSIONS.clone();
+    }
+
+    /**
+     * Returns {@code true} if the file has the compressed file extension.
+     *
+     * @param file the file.
+     * @return {@code true} if the file has the compressed file extension.
+     */
+    public static boolean isCompressed(Path file) {
+        String name = file.getFileName().toString();
+        for (String extension : EXTENSIONS) {
+            if (name.endsWith(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the read fraction of the compressed file. The position of the
+     * file channel is ahead of the parser at most by the size of the buffers.
+     *
+     * @return the read fraction of the compressed file.
+     */
+    @Override
+    public double getProgress() {
+        try {
+            return size == 0 ? 1 : (double) channel.position() / size;
+        } catch (IOException ex) {
+            return -1;
+        }
+    }
+
+    /**
+     * Creates the UTF-8 reader of the decompressed file. The channel is
+     * closed if the method fails.
+     *
+     * @param file the compressed CSV file.
+     * @param channel the file channel.
+     * @return the reader of the decompressed file.
+     * @throws IOException if the method fails.
+     */
+    private static Reader createReader(Path file, FileChannel channel) throws IOException {
+        try {
+            InputStream in = new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE);
+            String name = file.getFileName().toString();
+            if (name.endsWith(GZIP_EXTENSION)) {
+                in = new GZIPInputStream(in, BUFFER_SIZE);
+            } else if (name.endsWith(BZIP2_EXTENSION)) {
+                in = new BZip2CompressorInputStream(in, true);
+            } else if (name.endsWith(LZ4_EXTENSION)) {
+                in = new FramedLZ4CompressorInputStream(in, true);
+            } else {
+                throw new IOException("Unsupported compressed file " + file);
+            }
+            return new InputStreamReader(in, StandardCharsets.UTF_8);
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.dataset;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * The forward only CSV cursor. The cursor points to the current record and
+ * the values of the record are available until the next call of the
+ * {@link #next()} method.
+ *
+ * @author Andrej_Petras
+ */
+public interface CsvCursor extends Closeable {
+
+    /**
+     * Moves the cursor to the next record.
+     *
+     * @return {@code true} if the cursor points to the next record,
+     * {@code false} if there is no more record.
+     * @throws IOException if the method fails.
+     */
+    boolean next() throws IOException;
+
+    /**
+     * Gets the number of the values of the current record.
+     *
+     * @return the number of the values of the current record.
+     */
+    int getColumnCount();
+
+    /**
+     * Gets the value of the current record.
+     *
+     * @param column the column index.
+     * @return the value of the current record.
+     * @throws IOException if the method fails.
+     */
+    String getValue(int column) throws IOException;
+
+    /**
+     * Gets the current line number.
+     *
+     * @return the current line number.
+     */
+    long getLineNumber();
+
+    /**
+     * Gets the read fraction of the file.
+     *
+     * @return the read fraction between {@code 0} and {@code 1} or
+     * {@code -1} if it is unknown.
+     */
+    double getProgress();
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.dataset;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The forward only CSV record reader. The reader uses the DB-Unit CSV format:
+ * the values are separated by comma, quoted by double quote and the back
+ * slash escapes the next character in the quoted value. The unquoted values
+ * are trimmed by the {@link String#trim()} method and the empty lines are
+ * skipped.
+ *
+ * @author Andrej_Petras
+ */
+public class CsvRecordReader implements CsvCursor {
+
+    /**
+     * The end of the stream.
+     */
+    private static final int EOF = -1;
+
+    /**
+     * The value separator.
+     */
+    private static final char SEPARATOR = ',';
+
+    /**
+     * The quote character.
+     */
+    private static final char QUOTE = '"';
+
+    /**
+     * The escape character.
+     */
+    private static final char ESCAPE = '\\';
+
+    /**
+     * The buffer size.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The reader.
+     */
+    private final Reader reader;
+
+    /**
+     * The character buffer.
+     */
+    private final char[] buffer = new char[BUFFER_SIZE];
+
+    /**
+     * The position in the buffer.
+     */
+    private int position;
+
+    /**
+     * The number of the characters in the buffer.
+     */
+    private int limit;
+
+    /**
+     * The current value.
+     */
+    private final StringBuilder value = new StringBuilder();
+
+    /**
+     * The values of the current record.
+     */
+    private final List<String> values = new ArrayList<>();
+
+    /**
+     * The current line number.
+     */
+    private long line = 1;
+
+    /**
+     * The default constructor.
+     *
+     * @param reader the reader.
+     */
+    public CsvRecordReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean next() throws IOException {
+        values.clear();
+        value.setLength(0);
+
+        int c = read();
+        while (c == '\r' || c == '\n') {
+            c = read();
+        }
+        if (c == EOF) {
+            return false;
+        }
+
+        boolean quoted = false;
+        boolean inQuotes = false;
+        while (true) {
+            if (inQuotes) {
+                if (c == EOF) {
+                    throw new IOException("Unterminated quote at the line " + line);
+                }
+                if (c == ESCAPE) {
+                    c = read();
+                    if (c == EOF) {
+                        throw new IOException("Unterminated escape at the line " + line);
+                    }
+                    value.append((char) c);
+                } else if (c == QUOTE) {
+                    inQuotes = false;
+                } else {
+                    value.append((char) c);
+                }
+            } else if (c == SEPARATOR) {
+                addValue(quoted);
+                quoted = false;
+            } else if (c == '\r' || c == '\n' || c == EOF) {
+                addValue(quoted);
+                break;
+            } else if (c == QUOTE) {
+                if (!quoted && isBlank(value)) {
+                    value.setLength(0);
+                }
+                inQuotes = true;
+                quoted = true;
+            } else {
+                value.append((char) c);
+            }
+            c = read();
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int getColumnCount() {
+        return values.size();
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public String getValue(int column) {
+        return values.get(column);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public long getLineNumber() {
+        return line;
+    }
+
+    /**
+     * The reader does not know the size of the input.
+     *
+     * @return always {@code -1}.
+     */
+    @Override
+    public double getProgress() {
+        return -1;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Adds the current value to the record values.
+     *
+     * @param quoted the quoted value flag.
+     */
+    private void addValue(boolean quoted) {
+        String tmp = value.toString();
+        if (!quoted) {
+            tmp = tmp.trim();
+        }
+        values.add(tmp);
+        value.setLength(0);
+    }
+
+    /**
+     * Reads the next character.
+     *
+     * @return the next character or {@link #EOF}.
+     * @throws IOException if the method fails.
+     */
+    private int read() throws IOException {
+        if (position >= limit) {
+            limit = reader.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return EOF;
+            }
+        }
+        char c = buffer[position++];
+        if (c == '\n') {
+            line++;
+        }
+        return c;
+    }
+
+    /**
+     * Returns {@code true} if the value contains only white spaces. The white
+     * space is the same as for the {@link String#trim()} method.
+     *
+     * @param value the value.
+     * @return {@code true} if the value contains only white spaces.
+     */
+    private static boolean isBlank(CharSequence value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
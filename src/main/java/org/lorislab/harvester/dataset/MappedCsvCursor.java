@@ -0,0 +1,415 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.dataset;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The memory mapped CSV cursor. The cursor scans the UTF-8 file directly in
+ * the mapped buffer and keeps only the offsets of the values of the current
+ * record. The value is decoded to the string on the first access. The file
+ * is mapped in windows of {@value #WINDOW_SIZE} bytes, one record has to fit
+ * into the window.
+ *
+ * The format is the same as the format of the {@link CsvRecordReader}, the
+ * unquoted values are trimmed like by the {@link String#trim()} method. The
+ * values are returned as the strings, the operations convert them to the
+ * statement parameters by the DB-Unit data type of the column.
+ *
+ * @author Andrej_Petras
+ */
+public class MappedCsvCursor implements CsvCursor {
+
+    /**
+     * The maximum size of the mapped window.
+     */
+    private static final long WINDOW_SIZE = 256L * 1024 * 1024;
+
+    /**
+     * The value separator.
+     */
+    private static final byte SEPARATOR = ',';
+
+    /**
+     * The quote character.
+     */
+    private static final byte QUOTE = '"';
+
+    /**
+     * The escape character.
+     */
+    private static final byte ESCAPE = '\\';
+
+    /**
+     * The file.
+     */
+    private final Path file;
+
+    /**
+     * The file channel.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The file size.
+     */
+    private final long size;
+
+    /**
+     * The mapped window.
+     */
+    private MappedByteBuffer buffer;
+
+    /**
+     * The view of the mapped window for the bulk reads.
+     */
+    private ByteBuffer view;
+
+    /**
+     * The file offset of the mapped window.
+     */
+    private long base;
+
+    /**
+     * The position of the next record in the window.
+     */
+    private int position;
+
+    /**
+     * The start offsets of the values in the window.
+     */
+    private int[] starts = new int[16];
+
+    /**
+     * The end offsets of the values in the window.
+     */
+    private int[] ends = new int[16];
+
+    /**
+     * The quoted flags of the values.
+     */
+    private boolean[] quoted = new boolean[16];
+
+    /**
+     * The decoded values of the current record.
+     */
+    private String[] values = new String[16];
+
+    /**
+     * The number of the values of the current record.
+     */
+    private int count;
+
+    /**
+     * The decode buffer.
+     */
+    private byte[] scratch = new byte[1024];
+
+    /**
+     * The current line number.
+     */
+    private long line = 1;
+
+    /**
+     * The default constructor.
+     *
+     * @param file the CSV file.
+     * @throws IOException if the method fails.
+     */
+    public MappedCsvCursor(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = channel.size();
+        map(0);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean next() throws IOException {
+        Arrays.fill(values, 0, count, null);
+        count = 0;
+
+        // skip the empty lines
+        while (true) {
+            if (position >= buffer.limit()) {
+                if (base + position >= size) {
+                    return false;
+                }
+                map(base + position);
+            }
+            byte b = buffer.get(position);
+            if (b == '\n') {
+                line++;
+            } else if (b != '\r') {
+                break;
+            }
+            position++;
+        }
+
+        if (!scan()) {
+            if (position == 0) {
+                throw new IOException("The record at the line " + line + " is bigger than " + WINDOW_SIZE + " bytes in the file " + file);
+            }
+            map(base + position);
+            if (!scan()) {
+                throw new IOException("The record at the line " + line + " is bigger than " + WINDOW_SIZE + " bytes in the file " + file);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int getColumnCount() {
+        return count;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public String getValue(int column) throws IOException {
+        if (column < 0 || column >= count) {
+            throw new IndexOutOfBoundsException("Column " + column + " >= " + count);
+        }
+        String result = values[column];
+        if (result == null) {
+            result = decode(starts[column], ends[column], quoted[column]);
+            values[column] = result;
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public long getLineNumber() {
+        return line;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public double getProgress() {
+        if (size == 0) {
+            return 1;
+        }
+        return (double) (base + position) / size;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void close() throws IOException {
+        buffer = null;
+        view = null;
+        channel.close();
+    }
+
+    /**
+     * Scans the record from the current position.
+     *
+     * @return {@code true} if the whole record was scanned, {@code false} if
+     * the end of the window was reached before the end of the record.
+     * @throws IOException if the method fails.
+     */
+    private boolean scan() throws IOException {
+        int limit = buffer.limit();
+        boolean eof = base + limit >= size;
+        int p = position;
+        int start = p;
+        int lines = 0;
+        boolean valueQuoted = false;
+        boolean inQuotes = false;
+        count = 0;
+        while (true) {
+            if (p >= limit) {
+                if (!eof) {
+                    count = 0;
+                    return false;
+                }
+                if (inQuotes) {
+                    throw new IOException("Unterminated quote at the line " + line + " in the file " + file);
+                }
+                addValue(start, p, valueQuoted);
+                break;
+            }
+            byte b = buffer.get(p);
+            if (inQuotes) {
+                if (b == ESCAPE) {
+                    if (p + 1 >= limit) {
+                        if (eof) {
+                            throw new IOException("Unterminated escape at the line " + line + " in the file " + file);
+                        }
+                        count = 0;
+                        return false;
+                    }
+                    if (buffer.get(p + 1) == '\n') {
+                        lines++;
+                    }
+                    p += 2;
+                    continue;
+                }
+                if (b == QUOTE) {
+                    inQuotes = false;
+                } else if (b == '\n') {
+                    lines++;
+                }
+            } else if (b == SEPARATOR) {
+                addValue(start, p, valueQuoted);
+                start = p + 1;
+                valueQuoted = false;
+            } else if (b == '\n' || b == '\r') {
+                addValue(start, p, valueQuoted);
+                break;
+            } else if (b == QUOTE) {
+                inQuotes = true;
+                valueQuoted = true;
+            }
+            p++;
+        }
+        position = p;
+        line += lines;
+        return true;
+    }
+
+    /**
+     * Adds the value offsets to the current record.
+     *
+     * @param start the start offset.
+     * @param end the end offset.
+     * @param valueQuoted the quoted value flag.
+     */
+    private void addValue(int start, int end, boolean valueQuoted) {
+        if (count == starts.length) {
+            int length = count * 2;
+            starts = Arrays.copyOf(starts, length);
+            ends = Arrays.copyOf(ends, length);
+            quoted = Arrays.copyOf(quoted, length);
+            values = Arrays.copyOf(values, length);
+        }
+        starts[count] = start;
+        ends[count] = end;
+        quoted[count] = valueQuoted;
+        count++;
+    }
+
+    /**
+     * Decodes the value. The unquoted value is trimmed, the quotes and the
+     * escape characters are removed from the quoted value.
+     *
+     * @param start the start offset.
+     * @param end the end offset.
+     * @param valueQuoted the quoted value flag.
+     * @return the decoded value.
+     */
+    private String decode(int start, int end, boolean valueQuoted) {
+        if (!valueQuoted) {
+            while (start < end && isWhitespace(buffer.get(start))) {
+                start++;
+            }
+            while (end > start && isWhitespace(buffer.get(end - 1))) {
+                end--;
+            }
+            int length = end - start;
+            ensureScratch(length);
+            view.position(start);
+            view.get(scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        ensureScratch(end - start);
+        int length = 0;
+        boolean inQuotes = false;
+        boolean content = false;
+        for (int p = start; p < end; p++) {
+            byte b = buffer.get(p);
+            if (inQuotes) {
+                if (b == ESCAPE) {
+                    p++;
+                    scratch[length++] = buffer.get(p);
+                } else if (b == QUOTE) {
+                    inQuotes = false;
+                } else {
+                    scratch[length++] = b;
+                }
+            } else if (b == QUOTE) {
+                if (!content) {
+                    length = 0;
+                }
+                inQuotes = true;
+                content = true;
+            } else {
+                if (!isWhitespace(b)) {
+                    content = true;
+                }
+                scratch[length++] = b;
+            }
+        }
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Ensures the size of the decode buffer.
+     *
+     * @param length the required length.
+     */
+    private void ensureScratch(int length) {
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+    }
+
+    /**
+     * Maps the window of the file.
+     *
+     * @param offset the file offset of the window.
+     * @throws IOException if the method fails.
+     */
+    private void map(long offset) throws IOException {
+        long length = Math.min(WINDOW_SIZE, size - offset);
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        view = buffer.duplicate();
+        base = offset;
+        position = 0;
+    }
+
+    /**
+     * Returns {@code true} for the white space byte. The white space is the
+     * same as for the {@link String#trim()} method, the bytes of the UTF-8
+     * multi-byte characters are never white space.
+     *
+     * @param b the byte.
+     * @return {@code true} for the white space byte.
+     */
+    private static boolean isWhitespace(byte b) {
+        return (b & 0xff) <= ' ';
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.dataset;
+
+import java.nio.file.Path;
+import java.util.List;
+import org.dbunit.dataset.DataSetException;
+
+/**
+ * The snapshot data set. The data set reads the tables from the snapshot
+ * files created by the {@link SnapshotWriter}.
+ *
+ * @author Andrej_Petras
+ */
+public class SnapshotDataSet extends StreamingDataSet {
+
+    /**
+     * The snapshot file extension.
+     */
+    public static final String SNAPSHOT_EXTENSION = ".bin";
+
+    /**
+     * The snapshot directory.
+     */
+    private final Path directory;
+
+    /**
+     * Creates the data set with the tables.
+     *
+     * @param directory the snapshot directory.
+     * @param tableNames the ordered table names.
+     */
+    public SnapshotDataSet(Path directory, List<String> tableNames) {
+        super(tableNames);
+        this.directory = directory;
+    }
+
+    /**
+     * Gets the snapshot file of the table.
+     *
+     * @param tableName the table name.
+     * @return the snapshot file of the table.
+     */
+    @Override
+    public Path getTableFile(String tableName) {
+        return getTableFile(directory, tableName);
+    }
+
+    /**
+     * Gets the snapshot file of the table in the directory.
+     *
+     * @param directory the snapshot directory.
+     * @param tableName the table name.
+     * @return the snapshot file of the table.
+     */
+    public static Path getTableFile(Path directory, String tableName) {
+        return directory.resolve(tableName + SNAPSHOT_EXTENSION);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    protected StreamingTable createTable(String tableName) throws DataSetException {
+        return new SnapshotTable(tableName, getTableFile(tableName));
+    }
+}
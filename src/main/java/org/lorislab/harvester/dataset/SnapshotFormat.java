@@ -0,0 +1,267 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.dataset;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import org.dbunit.dataset.Column;
+
+/**
+ * The binary snapshot format. The snapshot file of the table contains the
+ * header with the column names, the time zone and the data types of the
+ * target columns followed by the row groups. The row group contains the
+ * values column by column, each value is stored with its type tag. The empty
+ * row group marks the end of the table.
+ *
+ * The dates, times and timestamps are converted in the default time zone
+ * and stored as the epoch milliseconds. The snapshot is valid only for the
+ * same default time zone and the same data types of the target columns.
+ *
+ * @author Andrej_Petras
+ */
+final class SnapshotFormat {
+
+    /**
+     * The magic number of the snapshot file.
+     */
+    static final int MAGIC = 0x48534e50;
+
+    /**
+     * The version of the snapshot format.
+     */
+    static final int VERSION = 2;
+
+    /**
+     * The number of the rows in the row group.
+     */
+    static final int ROW_GROUP_SIZE = 8192;
+
+    /**
+     * The null value tag.
+     */
+    private static final byte NULL = 0;
+
+    /**
+     * The string value tag.
+     */
+    private static final byte STRING = 1;
+
+    /**
+     * The integer value tag.
+     */
+    private static final byte INTEGER = 2;
+
+    /**
+     * The long value tag.
+     */
+    private static final byte LONG = 3;
+
+    /**
+     * The big integer value tag.
+     */
+    private static final byte BIG_INTEGER = 4;
+
+    /**
+     * The big decimal value tag.
+     */
+    private static final byte BIG_DECIMAL = 5;
+
+    /**
+     * The double value tag.
+     */
+    private static final byte DOUBLE = 6;
+
+    /**
+     * The float value tag.
+     */
+    private static final byte FLOAT = 7;
+
+    /**
+     * The boolean value tag.
+     */
+    private static final byte BOOLEAN = 8;
+
+    /**
+     * The date value tag.
+     */
+    private static final byte DATE = 9;
+
+    /**
+     * The time value tag.
+     */
+    private static final byte TIME = 10;
+
+    /**
+     * The timestamp value tag.
+     */
+    private static final byte TIMESTAMP = 11;
+
+    /**
+     * The bytes value tag.
+     */
+    private static final byte BYTES = 12;
+
+    /**
+     * The default constructor.
+     */
+    private SnapshotFormat() {
+        // empty constructor.
+    }
+
+    /**
+     * Gets the data type signature of the target column.
+     *
+     * @param column the target column.
+     * @return the data type signature.
+     */
+    static String getTypeSignature(Column column) {
+        return column.getDataType().getSqlType() + ":" + column.getSqlTypeName();
+    }
+
+    /**
+     * Writes the typed value. The value of the unsupported type is written
+     * as the raw string value.
+     *
+     * @param out the data output.
+     * @param value the typed value.
+     * @param raw the raw value.
+     * @throws IOException if the method fails.
+     */
+    static void writeValue(DataOutput out, Object value, Object raw) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            writeBytes(out, ((String) value).getBytes(StandardCharsets.UTF_8));
+        } else if (value instanceof Integer) {
+            out.writeByte(INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof BigInteger) {
+            out.writeByte(BIG_INTEGER);
+            writeBytes(out, ((BigInteger) value).toByteArray());
+        } else if (value instanceof BigDecimal) {
+            BigDecimal decimal = (BigDecimal) value;
+            out.writeByte(BIG_DECIMAL);
+            out.writeInt(decimal.scale());
+            writeBytes(out, decimal.unscaledValue().toByteArray());
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Float) {
+            out.writeByte(FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Timestamp) {
+            Timestamp timestamp = (Timestamp) value;
+            out.writeByte(TIMESTAMP);
+            out.writeLong(timestamp.getTime());
+            out.writeInt(timestamp.getNanos());
+        } else if (value instanceof Date) {
+            out.writeByte(DATE);
+            out.writeLong(((Date) value).getTime());
+        } else if (value instanceof Time) {
+            out.writeByte(TIME);
+            out.writeLong(((Time) value).getTime());
+        } else if (value instanceof byte[]) {
+            out.writeByte(BYTES);
+            writeBytes(out, (byte[]) value);
+        } else {
+            out.writeByte(STRING);
+            writeBytes(out, raw.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Reads the typed value.
+     *
+     * @param in the data input.
+     * @return the typed value.
+     * @throws IOException if the method fails.
+     */
+    static Object readValue(DataInput in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+                return new String(readBytes(in), StandardCharsets.UTF_8);
+            case INTEGER:
+                return in.readInt();
+            case LONG:
+                return in.readLong();
+            case BIG_INTEGER:
+                return new BigInteger(readBytes(in));
+            case BIG_DECIMAL:
+                int scale = in.readInt();
+                return new BigDecimal(new BigInteger(readBytes(in)), scale);
+            case DOUBLE:
+                return in.readDouble();
+            case FLOAT:
+                return in.readFloat();
+            case BOOLEAN:
+                return in.readBoolean();
+            case DATE:
+                return new Date(in.readLong());
+            case TIME:
+                return new Time(in.readLong());
+            case TIMESTAMP:
+                Timestamp timestamp = new Timestamp(in.readLong());
+                timestamp.setNanos(in.readInt());
+                return timestamp;
+            case BYTES:
+                return readBytes(in);
+            default:
+                throw new IOException("Unknown value tag " + tag);
+        }
+    }
+
+    /**
+     * Writes the bytes with its length.
+     *
+     * @param out the data output.
+     * @param bytes the bytes.
+     * @throws IOException if the method fails.
+     */
+    private static void writeBytes(DataOutput out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads the bytes with its length.
+     *
+     * @param in the data input.
+     * @return the bytes.
+     * @throws IOException if the method fails.
+     */
+    private static byte[] readBytes(DataInput in) throws IOException {
+        byte[] result = new byte[in.readInt()];
+        in.readFully(result);
+        return result;
+    }
+}
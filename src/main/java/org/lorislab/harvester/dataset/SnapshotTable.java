@@ -0,0 +1,352 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.dataset;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.Columns;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.DefaultTableMetaData;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.RowOutOfBoundsException;
+import org.dbunit.dataset.datatype.DataType;
+
+/**
+ * The forward only snapshot table. The table keeps only the current row
+ * group in the memory. The values are already converted to the data types
+ * of the target table. The operations which need the row count switch the
+ * table to the buffered mode which reads the rest of the file into the
+ * memory.
+ *
+ * @author Andrej_Petras
+ */
+public class SnapshotTable implements StreamingTable {
+
+    /**
+     * The logger for this class.
+     */
+    private static final Logger LOGGER = Logger.getLogger(SnapshotTable.class.getName());
+
+    /**
+     * The buffer size.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The table meta data.
+     */
+    private final ITableMetaData metaData;
+
+    /**
+     * The snapshot file.
+     */
+    private final Path file;
+
+    /**
+     * The data input.
+     */
+    private final DataInputStream in;
+
+    /**
+     * The file channel of the input stream.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The file size.
+     */
+    private final long size;
+
+    /**
+     * The number of the rows in the row group.
+     */
+    private final int rowGroupSize;
+
+    /**
+     * The values of the current row group by column.
+     */
+    private Object[][] values;
+
+    /**
+     * The index of the first row of the current row group.
+     */
+    private int groupStart;
+
+    /**
+     * The number of the rows in the current row group.
+     */
+    private int groupSize;
+
+    /**
+     * The end of the table flag.
+     */
+    private boolean finished;
+
+    /**
+     * The buffered row groups.
+     */
+    private List<Object[][]> groups;
+
+    /**
+     * The number of the buffered rows.
+     */
+    private int rowCount;
+
+    /**
+     * The default constructor.
+     *
+     * @param tableName the table name.
+     * @param file the snapshot file.
+     * @throws DataSetException if the method fails.
+     */
+    public SnapshotTable(String tableName, Path file) throws DataSetException {
+        this.file = file;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            size = channel.size();
+            in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE));
+        } catch (IOException ex) {
+            throw new DataSetException("Error open the snapshot file " + file, ex);
+        }
+        try {
+            if (in.readInt() != SnapshotFormat.MAGIC || in.readInt() != SnapshotFormat.VERSION) {
+                throw new DataSetException("Wrong format of the snapshot file " + file);
+            }
+            rowGroupSize = in.readInt();
+            Column[] columns = new Column[in.readInt()];
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = new Column(in.readUTF(), DataType.UNKNOWN);
+            }
+            // the time zone and the target data types are checked by isCompatible
+            in.readUTF();
+            for (int i = 0; i < columns.length; i++) {
+                in.readUTF();
+            }
+            metaData = new DefaultTableMetaData(tableName, columns);
+        } catch (IOException | DataSetException ex) {
+            closeQuietly();
+            if (ex instanceof DataSetException) {
+                throw (DataSetException) ex;
+            }
+            throw new DataSetException("Error reading the header of the snapshot file " + file, ex);
+        }
+    }
+
+    /**
+     * Returns {@code true} if the snapshot file was written for the target
+     * table in the current default time zone. The columns of the snapshot
+     * have to exist in the target table with the same data types.
+     *
+     * @param file the snapshot file.
+     * @param target the target table meta data.
+     * @return {@code true} if the snapshot file is compatible with the target
+     * table.
+     * @throws IOException if the method fails.
+     * @throws DataSetException if the method fails.
+     */
+    public static boolean isCompatible(Path file, ITableMetaData target) throws IOException, DataSetException {
+        try (DataInputStream tmp = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (tmp.readInt() != SnapshotFormat.MAGIC || tmp.readInt() != SnapshotFormat.VERSION) {
+                LOGGER.log(Level.INFO, "The snapshot file {0} has the old format.", file);
+                return false;
+            }
+            tmp.readInt();
+            String[] names = new String[tmp.readInt()];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = tmp.readUTF();
+            }
+            String timeZone = tmp.readUTF();
+            if (!TimeZone.getDefault().getID().equals(timeZone)) {
+                LOGGER.log(Level.INFO, "The snapshot file {0} was written in the time zone {1}.", new Object[]{file, timeZone});
+                return false;
+            }
+            Column[] columns = target.getColumns();
+            for (String name : names) {
+                String type = tmp.readUTF();
+                Column column = Columns.getColumn(name, columns);
+                if (column == null || !type.equals(SnapshotFormat.getTypeSignature(column))) {
+                    LOGGER.log(Level.INFO, "The column {0} of the snapshot file {1} does not match the target table.", new Object[]{name, file});
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public ITableMetaData getTableMetaData() {
+        return metaData;
+    }
+
+    /**
+     * Gets the row count. This method reads the rest of the file into the
+     * memory.
+     *
+     * @return the row count.
+     */
+    @Override
+    public int getRowCount() {
+        try {
+            buffer();
+        } catch (DataSetException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return rowCount;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int getRowsRead() {
+        if (groups != null) {
+            return rowCount;
+        }
+        return groupStart + groupSize;
+    }
+
+    /**
+     * Gets the read fraction of the snapshot file. The position of the file
+     * channel is ahead of the current row group at most by the size of the
+     * read buffer.
+     *
+     * @return the read fraction of the snapshot file.
+     */
+    @Override
+    public double getProgress() {
+        if (groups != null || finished) {
+            return 1;
+        }
+        try {
+            return size == 0 ? 1 : (double) channel.position() / size;
+        } catch (IOException ex) {
+            return -1;
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public Object getValue(int row, String column) throws DataSetException {
+        int index = metaData.getColumnIndex(column);
+        if (groups != null) {
+            if (row < 0 || row >= rowCount) {
+                throw new RowOutOfBoundsException(row + " >= " + rowCount);
+            }
+            return groups.get(row / rowGroupSize)[index][row % rowGroupSize];
+        }
+        if (row < groupStart) {
+            throw new DataSetException("The snapshot table " + metaData.getTableName() + " is forward only. Row " + row + " < " + groupStart);
+        }
+        while (row >= groupStart + groupSize) {
+            if (!readGroup()) {
+                throw new RowOutOfBoundsException(row + " >= " + (groupStart + groupSize));
+            }
+        }
+        return values[index][row - groupStart];
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void close() throws IOException {
+        finished = true;
+        in.close();
+    }
+
+    /**
+     * Reads the next row group.
+     *
+     * @return {@code true} if the next row group was read.
+     * @throws DataSetException if the method fails.
+     */
+    private boolean readGroup() throws DataSetException {
+        if (finished) {
+            return false;
+        }
+        try {
+            int count = in.readInt();
+            if (count == 0) {
+                closeQuietly();
+                return false;
+            }
+            Object[][] tmp = new Object[metaData.getColumns().length][count];
+            for (Object[] column : tmp) {
+                for (int r = 0; r < count; r++) {
+                    column[r] = SnapshotFormat.readValue(in);
+                }
+            }
+            groupStart = groupStart + groupSize;
+            groupSize = count;
+            values = tmp;
+            return true;
+        } catch (IOException ex) {
+            closeQuietly();
+            throw new DataSetException("Error reading the snapshot file " + file, ex);
+        }
+    }
+
+    /**
+     * Reads the rest of the file to the memory.
+     *
+     * @throws DataSetException if the method fails.
+     */
+    private void buffer() throws DataSetException {
+        if (groups != null) {
+            return;
+        }
+        if (groupStart > 0) {
+            throw new DataSetException("The snapshot table " + metaData.getTableName() + " could not be buffered after row " + groupStart);
+        }
+        List<Object[][]> tmp = new ArrayList<>();
+        if (groupSize > 0) {
+            tmp.add(values);
+        }
+        while (readGroup()) {
+            tmp.add(values);
+        }
+        rowCount = groupStart + groupSize;
+        groups = tmp;
+    }
+
+    /**
+     * Closes the file and ignore the exception.
+     */
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException ex) {
+            // ignore the exception
+        }
+    }
+}
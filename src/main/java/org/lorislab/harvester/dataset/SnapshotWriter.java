@@ -0,0 +1,115 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.dataset;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.TimeZone;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.RowOutOfBoundsException;
+import org.dbunit.dataset.datatype.DataType;
+
+/**
+ * The snapshot writer. The writer converts the values of the table to the
+ * data types of the target table and writes them in the row groups to the
+ * snapshot file.
+ *
+ * @author Andrej_Petras
+ */
+public final class SnapshotWriter {
+
+    /**
+     * The buffer size.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The default constructor.
+     */
+    private SnapshotWriter() {
+        // empty constructor.
+    }
+
+    /**
+     * Writes the table to the snapshot file.
+     *
+     * @param table the source table.
+     * @param target the target table meta data with the column data types.
+     * @param file the snapshot file.
+     * @return the number of the written rows.
+     * @throws DataSetException if the method fails.
+     * @throws IOException if the method fails.
+     */
+    public static int write(ITable table, ITableMetaData target, Path file) throws DataSetException, IOException {
+        Column[] columns = table.getTableMetaData().getColumns();
+        Column[] targetColumns = new Column[columns.length];
+        DataType[] types = new DataType[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            targetColumns[i] = target.getColumns()[target.getColumnIndex(columns[i].getColumnName())];
+            types[i] = targetColumns[i].getDataType();
+        }
+
+        int rows = 0;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE))) {
+            out.writeInt(SnapshotFormat.MAGIC);
+            out.writeInt(SnapshotFormat.VERSION);
+            out.writeInt(SnapshotFormat.ROW_GROUP_SIZE);
+            out.writeInt(columns.length);
+            for (Column column : columns) {
+                out.writeUTF(column.getColumnName());
+            }
+            out.writeUTF(TimeZone.getDefault().getID());
+            for (Column column : targetColumns) {
+                out.writeUTF(SnapshotFormat.getTypeSignature(column));
+            }
+
+            Object[][] raw = new Object[columns.length][SnapshotFormat.ROW_GROUP_SIZE];
+            boolean finished = false;
+            while (!finished) {
+                int count = 0;
+                while (count < SnapshotFormat.ROW_GROUP_SIZE) {
+                    try {
+                        for (int i = 0; i < columns.length; i++) {
+                            raw[i][count] = table.getValue(rows, columns[i].getColumnName());
+                        }
+                    } catch (RowOutOfBoundsException ex) {
+                        finished = true;
+                        break;
+                    }
+                    count++;
+                    rows++;
+                }
+                if (count > 0) {
+                    out.writeInt(count);
+                    for (int i = 0; i < columns.length; i++) {
+                        for (int r = 0; r < count; r++) {
+                            Object value = raw[i][r];
+                            SnapshotFormat.writeValue(out, types[i].typeCast(value), value);
+                        }
+                    }
+                }
+            }
+            out.writeInt(0);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.dataset;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.csv.CsvDataSet;
+
+/**
+ * The streaming CSV data set. The data set has the same directory layout as
+ * the DB-Unit {@link CsvDataSet}, but the tables are opened one by one
+ * during the iteration and the rows are read on demand.
+ *
+ * @author Andrej_Petras
+ */
+public class StreamingCsvDataSet extends StreamingDataSet {
+
+    /**
+     * The CSV file extension.
+     */
+    public static final String CSV_EXTENSION = ".csv";
+
+    /**
+     * The data set directory.
+     */
+    private final Path directory;
+
+    /**
+     * Creates the data set with the tables from the table ordering file.
+     *
+     * @param directory the data set directory.
+     * @throws DataSetException if the method fails.
+     */
+    public StreamingCsvDataSet(Path directory) throws DataSetException {
+        this(directory, readTableOrdering(directory));
+    }
+
+    /**
+     * Creates the data set with the tables.
+     *
+     * @param directory the data set directory.
+     * @param tableNames the ordered table names.
+     */
+    public StreamingCsvDataSet(Path directory, List<String> tableNames) {
+        super(tableNames);
+        this.directory = directory;
+    }
+
+    /**
+     * Reads the table names from the table ordering file.
+     *
+     * @param directory the data set directory.
+     * @return the ordered table names.
+     * @throws DataSetException if the method fails.
+     */
+    public static List<String> readTableOrdering(Path directory) throws DataSetException {
+        Path file = directory.resolve(CsvDataSet.TABLE_ORDERING_FILE);
+        if (!Files.exists(file)) {
+            throw new DataSetException("Missing the table ordering file " + file);
+        }
+        List<String> result = new ArrayList<>();
+        try {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                String table = line.trim();
+                if (!table.isEmpty()) {
+                    result.add(table);
+                }
+            }
+        } catch (IOException ex) {
+            throw new DataSetException("Error reading the table ordering file " + file, ex);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the data set directory.
+     *
+     * @return the data set directory.
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Gets the CSV file of the table.
+     *
+     * @param tableName the table name.
+     * @return the CSV file of the table.
+     */
+    @Override
+    public Path getTableFile(String tableName) {
+        return getTableFile(directory, tableName);
+    }
+
+    /**
+     * Returns {@code true} if any table of the data set has the compressed
+     * CSV file.
+     *
+     * @return {@code true} if any table has the compressed CSV file.
+     * @throws DataSetException if the method fails.
+     */
+    public boolean isCompressed() throws DataSetException {
+        for (String tableName : getTableNames()) {
+            if (CompressedCsvCursor.isCompressed(getTableFile(tableName))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns {@code true} if the directory contains the plain or compressed
+     * CSV file.
+     *
+     * @param directory the data set directory.
+     * @return {@code true} if the directory contains the CSV file.
+     * @throws IOException if the method fails.
+     */
+    public static boolean hasCsvFiles(Path directory) throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, (Path file) -> {
+            String name = file.getFileName().toString();
+            if (CompressedCsvCursor.isCompressed(file)) {
+                name = name.substring(0, name.lastIndexOf('.'));
+            }
+            return name.endsWith(CSV_EXTENSION) && Files.isRegularFile(file);
+        })) {
+            return stream.iterator().hasNext();
+        }
+    }
+
+    /**
+     * Gets the CSV file of the table in the directory. The plain CSV file
+     * is used if it exists, otherwise the first existing compressed CSV
+     * file.
+     *
+     * @param directory the data set directory.
+     * @param tableName the table name.
+     * @return the CSV file of the table.
+     */
+    public static Path getTableFile(Path directory, String tableName) {
+        Path result = directory.resolve(tableName + CSV_EXTENSION);
+        if (!Files.exists(result)) {
+            for (String extension : CompressedCsvCursor.getExtensions()) {
+                Path file = directory.resolve(tableName + CSV_EXTENSION + extension);
+                if (Files.exists(file)) {
+                    return file;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    protected StreamingTable createTable(String tableName) throws DataSetException {
+        return new StreamingCsvTable(tableName, getTableFile(tableName));
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.dataset;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.DefaultTableMetaData;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.RowOutOfBoundsException;
+import org.dbunit.dataset.datatype.DataType;
+import org.dbunit.dataset.csv.CsvDataSetWriter;
+
+/**
+ * The forward only CSV table. The table keeps only the current row of the
+ * {@link CsvCursor} in the memory. The rows are read on demand by increasing
+ * row index, the end of the table is signaled by the
+ * {@link RowOutOfBoundsException} as expected by the DB-Unit operations. The
+ * row count is counted by a separate scan of the file, the table could not be
+ * read in the reverse row order.
+ *
+ * @author Andrej_Petras
+ */
+public class StreamingCsvTable implements StreamingTable {
+
+    /**
+     * The table meta data.
+     */
+    private final ITableMetaData metaData;
+
+    /**
+     * The CSV file.
+     */
+    private final Path file;
+
+    /**
+     * The CSV cursor.
+     */
+    private final CsvCursor cursor;
+
+    /**
+     * The number of the columns.
+     */
+    private final int columnCount;
+
+    /**
+     * The current row index.
+     */
+    private int row = -1;
+
+    /**
+     * The end of the table flag.
+     */
+    private boolean finished;
+
+    /**
+     * The row count or {@code -1} if it is not counted.
+     */
+    private int rowCount = -1;
+
+    /**
+     * The default constructor.
+     *
+     * @param tableName the table name.
+     * @param file the CSV file.
+     * @throws DataSetException if the method fails.
+     */
+    public StreamingCsvTable(String tableName, Path file) throws DataSetException {
+        this.file = file;
+        try {
+            cursor = createCursor(file);
+        } catch (IOException ex) {
+            throw new DataSetException("Error open the CSV file " + file, ex);
+        }
+        try {
+            if (!cursor.next()) {
+                throw new DataSetException("Missing header in the CSV file " + file);
+            }
+            columnCount = cursor.getColumnCount();
+            Column[] columns = new Column[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                columns[i] = new Column(cursor.getValue(i), DataType.UNKNOWN);
+            }
+            metaData = new DefaultTableMetaData(tableName, columns);
+        } catch (IOException | DataSetException ex) {
+            closeQuietly();
+            if (ex instanceof DataSetException) {
+                throw (DataSetException) ex;
+            }
+            throw new DataSetException("Error reading the header of the CSV file " + file, ex);
+        }
+    }
+
+    /**
+     * Creates the CSV cursor for the file. The plain CSV file is memory
+     * mapped, the compressed CSV file is decompressed in the stream.
+     *
+     * @param file the CSV file.
+     * @return the CSV cursor.
+     * @throws IOException if the method fails.
+     */
+    public static CsvCursor createCursor(Path file) throws IOException {
+        if (CompressedCsvCursor.isCompressed(file)) {
+            return new CompressedCsvCursor(file);
+        }
+        return new MappedCsvCursor(file);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public ITableMetaData getTableMetaData() {
+        return metaData;
+    }
+
+    /**
+     * Gets the row count. The rows are counted by a separate scan of the
+     * file, the current row of the table is not changed.
+     *
+     * @return the row count.
+     * @throws UncheckedIOException if the reading of the file fails.
+     */
+    @Override
+    public int getRowCount() {
+        if (rowCount < 0) {
+            try (CsvCursor counter = createCursor(file)) {
+                int count = -1;
+                while (counter.next()) {
+                    count++;
+                }
+                rowCount = Math.max(count, 0);
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Error counting the rows of the CSV file " + file, ex);
+            }
+        }
+        return rowCount;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int getRowsRead() {
+        return row + 1;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public double getProgress() {
+        if (finished) {
+            return 1;
+        }
+        return cursor.getProgress();
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public Object getValue(int row, String column) throws DataSetException {
+        int index = metaData.getColumnIndex(column);
+        moveTo(row);
+        String value;
+        try {
+            value = cursor.getValue(index);
+        } catch (IOException ex) {
+            throw new DataSetException("Error reading the CSV file " + file, ex);
+        }
+        if (CsvDataSetWriter.NULL.equals(value)) {
+            return null;
+        }
+        return value;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void close() throws IOException {
+        finished = true;
+        cursor.close();
+    }
+
+    /**
+     * Moves the table to the row.
+     *
+     * @param index the row index.
+     * @throws DataSetException if the method fails.
+     */
+    private void moveTo(int index) throws DataSetException {
+        if (index < row) {
+            throw new DataSetException("The streaming table " + metaData.getTableName() + " is forward only. Row " + index + " < " + row);
+        }
+        while (row < index) {
+            if (finished || !nextRow()) {
+                closeQuietly();
+                throw new RowOutOfBoundsException(index + " > " + row);
+            }
+            row++;
+        }
+    }
+
+    /**
+     * Moves the cursor to the next row.
+     *
+     * @return {@code true} if the cursor points to the next row.
+     * @throws DataSetException if the method fails.
+     */
+    private boolean nextRow() throws DataSetException {
+        try {
+            boolean result = cursor.next();
+            if (result && cursor.getColumnCount() != columnCount) {
+                throw new DataSetException("Expected " + columnCount + " columns but found " + cursor.getColumnCount()
+                        + " in the file " + file + " at the line " + cursor.getLineNumber());
+            }
+            return result;
+        } catch (IOException ex) {
+            throw new DataSetException("Error reading the CSV file " + file, ex);
+        }
+    }
+
+    /**
+     * Closes the cursor and ignore the exception.
+     */
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException ex) {
+            // ignore the exception
+        }
+    }
+}
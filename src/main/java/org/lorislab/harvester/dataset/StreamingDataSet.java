@@ -0,0 +1,344 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.dataset;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableIterator;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.NoSuchTableException;
+
+/**
+ * The streaming data set. The tables are opened one by one during the
+ * iteration and the rows are read on demand. Each iterator opens the tables
+ * again, so the data set could be used by the composite operations like the
+ * clean insert.
+ *
+ * @author Andrej_Petras
+ */
+public abstract class StreamingDataSet implements IDataSet, Closeable {
+
+    /**
+     * The logger for this class.
+     */
+    private static final Logger LOGGER = Logger.getLogger(StreamingDataSet.class.getName());
+
+    /**
+     * The ordered table names.
+     */
+    private final List<String> tableNames;
+
+    /**
+     * The opened tables with the open time.
+     */
+    private final Map<StreamingTable, Long> opened = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    /**
+     * The table metrics by the table name.
+     */
+    private final Map<String, TableMetrics> metrics = new LinkedHashMap<>();
+
+    /**
+     * The default constructor.
+     *
+     * @param tableNames the ordered table names.
+     */
+    protected StreamingDataSet(List<String> tableNames) {
+        this.tableNames = new ArrayList<>(tableNames);
+    }
+
+    /**
+     * Creates the new table instance.
+     *
+     * @param tableName the table name.
+     * @return the new table instance.
+     * @throws DataSetException if the method fails.
+     */
+    protected abstract StreamingTable createTable(String tableName) throws DataSetException;
+
+    /**
+     * Gets the file of the table.
+     *
+     * @param tableName the table name.
+     * @return the file of the table.
+     */
+    public abstract Path getTableFile(String tableName);
+
+    /**
+     * Records the measurement of the table. The iterator of the data set
+     * records the tables automatically, the operations which load the table
+     * file directly record the table by this method.
+     *
+     * @param tableName the table name.
+     * @param rows the number of the rows.
+     * @param nanos the duration in nanoseconds.
+     */
+    public void record(String tableName, long rows, long nanos) {
+        long bytes = 0;
+        try {
+            bytes = Files.size(getTableFile(tableName));
+        } catch (IOException ex) {
+            LOGGER.log(Level.FINEST, "Error reading the size of the table file " + tableName, ex);
+        }
+        synchronized (metrics) {
+            metrics.computeIfAbsent(tableName, TableMetrics::new).add(rows, bytes, nanos);
+        }
+    }
+
+    /**
+     * Gets the metrics of the tables in the order of the first measurement.
+     *
+     * @return the metrics of the tables.
+     */
+    public List<TableMetrics> getMetrics() {
+        synchronized (metrics) {
+            return new ArrayList<>(metrics.values());
+        }
+    }
+
+    /**
+     * Gets the progress of the opened tables. The method could be called by
+     * other thread during the import.
+     *
+     * @return the progress of the opened tables.
+     */
+    public List<TableProgress> getProgress() {
+        long now = System.nanoTime();
+        List<TableProgress> result = new ArrayList<>();
+        synchronized (opened) {
+            opened.forEach((table, start) -> result.add(new TableProgress(table.getTableMetaData().getTableName(),
+                    table.getRowsRead(), table.getProgress(), now - start)));
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public String[] getTableNames() throws DataSetException {
+        return tableNames.toArray(new String[tableNames.size()]);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public ITableMetaData getTableMetaData(String tableName) throws DataSetException {
+        StreamingTable table = createTable(findTableName(tableName));
+        try {
+            return table.getTableMetaData();
+        } finally {
+            closeQuietly(table);
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public ITable getTable(String tableName) throws DataSetException {
+        return open(findTableName(tableName));
+    }
+
+    /**
+     * Gets all tables of the data set. This method opens all tables at once.
+     *
+     * @return all tables of the data set.
+     * @throws DataSetException if the method fails.
+     * @deprecated use the {@link #iterator()}
+     */
+    @Override
+    @Deprecated
+    public ITable[] getTables() throws DataSetException {
+        ITable[] result = new ITable[tableNames.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = open(tableNames.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public ITableIterator iterator() throws DataSetException {
+        return new StreamingIterator(tableNames);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public ITableIterator reverseIterator() throws DataSetException {
+        List<String> tmp = new ArrayList<>(tableNames);
+        Collections.reverse(tmp);
+        return new StreamingIterator(tmp);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public boolean isCaseSensitiveTableNames() {
+        return false;
+    }
+
+    /**
+     * Closes all opened tables.
+     */
+    @Override
+    public void close() {
+        synchronized (opened) {
+            opened.keySet().forEach(StreamingDataSet::closeQuietly);
+            opened.clear();
+        }
+    }
+
+    /**
+     * Opens the table.
+     *
+     * @param tableName the table name.
+     * @return the opened table.
+     * @throws DataSetException if the method fails.
+     */
+    private StreamingTable open(String tableName) throws DataSetException {
+        StreamingTable table = createTable(tableName);
+        opened.put(table, System.nanoTime());
+        return table;
+    }
+
+    /**
+     * Closes the opened table.
+     *
+     * @param table the table.
+     */
+    private void release(StreamingTable table) {
+        opened.remove(table);
+        closeQuietly(table);
+    }
+
+    /**
+     * Finds the table name in the data set.
+     *
+     * @param tableName the table name.
+     * @return the table name in the data set.
+     * @throws DataSetException if the table does not exists.
+     */
+    private String findTableName(String tableName) throws DataSetException {
+        for (String name : tableNames) {
+            if (name.equalsIgnoreCase(tableName)) {
+                return name;
+            }
+        }
+        throw new NoSuchTableException(tableName);
+    }
+
+    /**
+     * Closes the table and ignore the exception.
+     *
+     * @param table the table.
+     */
+    private static void closeQuietly(StreamingTable table) {
+        try {
+            table.close();
+        } catch (IOException ex) {
+            LOGGER.log(Level.FINEST, "Error closing the table " + table.getTableMetaData().getTableName(), ex);
+        }
+    }
+
+    /**
+     * The streaming table iterator.
+     */
+    private class StreamingIterator implements ITableIterator {
+
+        /**
+         * The table names.
+         */
+        private final List<String> names;
+
+        /**
+         * The current index.
+         */
+        private int index = -1;
+
+        /**
+         * The current table.
+         */
+        private StreamingTable table;
+
+        /**
+         * The open time of the current table.
+         */
+        private long start;
+
+        /**
+         * The default constructor.
+         *
+         * @param names the table names.
+         */
+        StreamingIterator(List<String> names) {
+            this.names = names;
+        }
+
+        /**
+         * {@inheritDoc }
+         */
+        @Override
+        public boolean next() throws DataSetException {
+            if (table != null) {
+                record(names.get(index), table.getRowsRead(), System.nanoTime() - start);
+                release(table);
+                table = null;
+            }
+            index++;
+            return index < names.size();
+        }
+
+        /**
+         * {@inheritDoc }
+         */
+        @Override
+        public ITableMetaData getTableMetaData() throws DataSetException {
+            return getTable().getTableMetaData();
+        }
+
+        /**
+         * {@inheritDoc }
+         */
+        @Override
+        public ITable getTable() throws DataSetException {
+            if (table == null) {
+                start = System.nanoTime();
+                table = open(names.get(index));
+            }
+            return table;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.dataset;
+
+import java.io.Closeable;
+import org.dbunit.dataset.ITable;
+
+/**
+ * The forward only table of the {@link StreamingDataSet}. The table holds
+ * the open resources until it is closed.
+ *
+ * @author Andrej_Petras
+ */
+public interface StreamingTable extends ITable, Closeable {
+
+    /**
+     * Gets the number of the rows read from the table file.
+     *
+     * @return the number of the read rows.
+     */
+    int getRowsRead();
+
+    /**
+     * Gets the read fraction of the table file. The value is only an
+     * estimate, it could be read by other thread during the import.
+     *
+     * @return the read fraction between {@code 0} and {@code 1} or
+     * {@code -1} if it is unknown.
+     */
+    double getProgress();
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.dataset;
+
+import java.io.Serializable;
+
+/**
+ * The import metrics of the table.
+ *
+ * @author Andrej_Petras
+ */
+public class TableMetrics implements Serializable {
+
+    private static final long serialVersionUID = 2950462217536612084L;
+
+    /**
+     * The table name.
+     */
+    private final String table;
+
+    /**
+     * The number of the rows.
+     */
+    private long rows;
+
+    /**
+     * The number of the bytes of the table file.
+     */
+    private long bytes;
+
+    /**
+     * The duration in nanoseconds.
+     */
+    private long nanos;
+
+    /**
+     * The default constructor.
+     *
+     * @param table the table name.
+     */
+    public TableMetrics(String table) {
+        this.table = table;
+    }
+
+    /**
+     * Adds the measurement of the table. The composite operations iterate
+     * the table more times, the duration is summed and the maximum of the
+     * rows and bytes is kept.
+     *
+     * @param rows the number of the rows.
+     * @param bytes the number of the bytes of the table file.
+     * @param nanos the duration in nanoseconds.
+     */
+    public void add(long rows, long bytes, long nanos) {
+        this.rows = Math.max(this.rows, rows);
+        this.bytes = Math.max(this.bytes, bytes);
+        this.nanos += nanos;
+    }
+
+    /**
+     * Gets the table name.
+     *
+     * @return the table name.
+     */
+    public String getTable() {
+        return table;
+    }
+
+    /**
+     * Gets the number of the rows.
+     *
+     * @return the number of the rows.
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * Gets the number of the bytes of the table file.
+     *
+     * @return the number of the bytes.
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Gets the duration in nanoseconds.
+     *
+     * @return the duration in nanoseconds.
+     */
+    public long getNanos() {
+        return nanos;
+    }
+
+    /**
+     * Gets the duration in milliseconds.
+     *
+     * @return the duration in milliseconds.
+     */
+    public long getMillis() {
+        return nanos / 1000000L;
+    }
+
+    /**
+     * Gets the number of the rows per second.
+     *
+     * @return the number of the rows per second.
+     */
+    public double getRowsPerSecond() {
+        if (nanos <= 0) {
+            return 0;
+        }
+        return rows * 1e9 / nanos;
+    }
+}
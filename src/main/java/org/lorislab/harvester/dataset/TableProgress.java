@@ -0,0 +1,115 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.dataset;
+
+/**
+ * The progress of the table which is currently loaded. The total number of
+ * the rows is estimated from the read fraction of the table file.
+ *
+ * @author Andrej_Petras
+ */
+public class TableProgress {
+
+    /**
+     * The table name.
+     */
+    private final String table;
+
+    /**
+     * The number of the read rows.
+     */
+    private final long rows;
+
+    /**
+     * The estimated total number of the rows or {@code -1}.
+     */
+    private final long total;
+
+    /**
+     * The duration since the table was opened in nanoseconds.
+     */
+    private final long nanos;
+
+    /**
+     * The default constructor.
+     *
+     * @param table the table name.
+     * @param rows the number of the read rows.
+     * @param progress the read fraction of the table file or {@code -1}.
+     * @param nanos the duration since the table was opened in nanoseconds.
+     */
+    public TableProgress(String table, long rows, double progress, long nanos) {
+        this.table = table;
+        this.rows = rows;
+        this.nanos = nanos;
+        if (progress >= 1) {
+            total = rows;
+        } else if (progress > 0 && rows > 0) {
+            total = Math.max(rows, Math.round(rows / progress));
+        } else {
+            total = -1;
+        }
+    }
+
+    /**
+     * Gets the table name.
+     *
+     * @return the table name.
+     */
+    public String getTable() {
+        return table;
+    }
+
+    /**
+     * Gets the number of the read rows.
+     *
+     * @return the number of the read rows.
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * Gets the estimated total number of the rows.
+     *
+     * @return the estimated total number of the rows or {@code -1} if it is
+     * unknown.
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Gets the duration since the table was opened in nanoseconds.
+     *
+     * @return the duration in nanoseconds.
+     */
+    public long getNanos() {
+        return nanos;
+    }
+
+    /**
+     * Gets the estimated time to the end of the table in seconds.
+     *
+     * @return the estimated time in seconds or {@code -1} if it is unknown.
+     */
+    public long getEtaSeconds() {
+        if (total < 0 || rows == 0) {
+            return -1;
+        }
+        return (long) ((double) nanos * (total - rows) / rows / 1e9);
+    }
+}
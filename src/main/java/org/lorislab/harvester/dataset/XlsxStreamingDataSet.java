@@ -0,0 +1,169 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.dataset;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.dbunit.dataset.DataSetException;
+
+/**
+ * The streaming XLSX data set. Every sheet of the workbooks in the data set
+ * directory is one table with the column names in the first row. The tables
+ * are ordered by the workbook file name and the sheet order. The sheet is
+ * read by the StAX parser row by row, only the shared strings of the
+ * workbook are kept in the memory.
+ *
+ * @author Andrej_Petras
+ */
+public class XlsxStreamingDataSet extends StreamingDataSet {
+
+    /**
+     * The XLSX file extension.
+     */
+    public static final String XLSX_EXTENSION = ".xlsx";
+
+    /**
+     * The prefix of the Excel lock files.
+     */
+    private static final String LOCK_FILE_PREFIX = "~$";
+
+    /**
+     * The workbook of the tables.
+     */
+    private final Map<String, Path> workbooks = new LinkedHashMap<>();
+
+    /**
+     * Creates the data set with the tables.
+     *
+     * @param directory the data set directory.
+     * @param tableNames the ordered table names.
+     * @throws DataSetException if the method fails.
+     */
+    public XlsxStreamingDataSet(Path directory, List<String> tableNames) throws DataSetException {
+        super(tableNames);
+        Map<String, Path> sheets = readSheets(directory);
+        for (String table : tableNames) {
+            Path workbook = null;
+            for (Map.Entry<String, Path> sheet : sheets.entrySet()) {
+                if (sheet.getKey().equalsIgnoreCase(table)) {
+                    workbook = sheet.getValue();
+                }
+            }
+            if (workbook == null) {
+                throw new DataSetException("Missing the sheet " + table + " in the workbooks of the directory " + directory);
+            }
+            workbooks.put(table, workbook);
+        }
+    }
+
+    /**
+     * Returns {@code true} if the directory contains the XLSX workbook.
+     *
+     * @param directory the data set directory.
+     * @return {@code true} if the directory contains the XLSX workbook.
+     * @throws IOException if the method fails.
+     */
+    public static boolean hasWorkbooks(Path directory) throws IOException {
+        return !getWorkbooks(directory).isEmpty();
+    }
+
+    /**
+     * Reads the sheet names of the workbooks in the directory.
+     *
+     * @param directory the data set directory.
+     * @return the workbook by the sheet name in the table order.
+     * @throws DataSetException if the method fails.
+     */
+    public static Map<String, Path> readSheets(Path directory) throws DataSetException {
+        Map<String, Path> result = new LinkedHashMap<>();
+        try {
+            for (Path workbook : getWorkbooks(directory)) {
+                OPCPackage pkg = OPCPackage.open(workbook.toFile(), PackageAccess.READ);
+                try {
+                    XSSFReader.SheetIterator iter = (XSSFReader.SheetIterator) new XSSFReader(pkg).getSheetsData();
+                    while (iter.hasNext()) {
+                        iter.next().close();
+                        String name = iter.getSheetName();
+                        Path previous = result.putIfAbsent(name, workbook);
+                        if (previous != null) {
+                            throw new DataSetException("The sheet " + name + " exists in the workbooks " + previous + " and " + workbook);
+                        }
+                    }
+                } finally {
+                    pkg.revert();
+                }
+            }
+        } catch (DataSetException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new DataSetException("Error reading the workbooks of the directory " + directory, ex);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the workbooks of the directory ordered by the file name.
+     *
+     * @param directory the data set directory.
+     * @return the workbooks of the directory.
+     * @throws IOException if the method fails.
+     */
+    private static List<Path> getWorkbooks(Path directory) throws IOException {
+        List<Path> result = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, (Path file) -> {
+            String name = file.getFileName().toString();
+            return name.endsWith(XLSX_EXTENSION) && !name.startsWith(LOCK_FILE_PREFIX) && Files.isRegularFile(file);
+        })) {
+            stream.forEach(result::add);
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    /**
+     * Gets the workbook file of the table.
+     *
+     * @param tableName the table name.
+     * @return the workbook file of the table.
+     */
+    @Override
+    public Path getTableFile(String tableName) {
+        for (Map.Entry<String, Path> entry : workbooks.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(tableName)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    protected StreamingTable createTable(String tableName) throws DataSetException {
+        return new XlsxStreamingTable(tableName, getTableFile(tableName));
+    }
+}
@@ -0,0 +1,476 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.dataset;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.DefaultTableMetaData;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.RowOutOfBoundsException;
+import org.dbunit.dataset.datatype.DataType;
+
+/**
+ * The forward only XLSX sheet table. The sheet XML is read by the StAX
+ * parser and only the current row is kept in the memory. The first row
+ * contains the column names, the empty rows are skipped and the empty cells
+ * are {@code null}. The numeric cells are converted to the
+ * {@link BigDecimal} or to the {@link java.util.Date} for the date format,
+ * the boolean cells to the {@link Boolean} and the other cells to the
+ * string. The operations which need the row count switch the table to the
+ * buffered mode which reads the rest of the sheet into the memory.
+ *
+ * @author Andrej_Petras
+ */
+public class XlsxStreamingTable implements StreamingTable {
+
+    /**
+     * The XML input factory.
+     */
+    private static final XMLInputFactory FACTORY = XMLInputFactory.newInstance();
+
+    static {
+        FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    /**
+     * The table meta data.
+     */
+    private final ITableMetaData metaData;
+
+    /**
+     * The workbook file.
+     */
+    private final Path file;
+
+    /**
+     * The workbook package.
+     */
+    private final OPCPackage pkg;
+
+    /**
+     * The shared strings of the workbook.
+     */
+    private final ReadOnlySharedStringsTable strings;
+
+    /**
+     * The styles of the workbook.
+     */
+    private final StylesTable styles;
+
+    /**
+     * The date format flag by the style index.
+     */
+    private final Map<Integer, Boolean> dateStyles = new HashMap<>();
+
+    /**
+     * The sheet input stream.
+     */
+    private InputStream in;
+
+    /**
+     * The sheet XML reader.
+     */
+    private XMLStreamReader xml;
+
+    /**
+     * The number of the columns.
+     */
+    private int columnCount;
+
+    /**
+     * The current row values.
+     */
+    private Object[] current;
+
+    /**
+     * The current row index.
+     */
+    private int row = -1;
+
+    /**
+     * The end of the table flag.
+     */
+    private boolean finished;
+
+    /**
+     * The buffered rows.
+     */
+    private List<Object[]> rows;
+
+    /**
+     * The default constructor.
+     *
+     * @param tableName the table name.
+     * @param file the workbook file.
+     * @throws DataSetException if the method fails.
+     */
+    public XlsxStreamingTable(String tableName, Path file) throws DataSetException {
+        this.file = file;
+        try {
+            pkg = OPCPackage.open(file.toFile(), PackageAccess.READ);
+        } catch (Exception ex) {
+            throw new DataSetException("Error open the workbook " + file, ex);
+        }
+        try {
+            XSSFReader reader = new XSSFReader(pkg);
+            strings = new ReadOnlySharedStringsTable(pkg);
+            styles = reader.getStylesTable();
+            XSSFReader.SheetIterator iter = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (in == null && iter.hasNext()) {
+                InputStream tmp = iter.next();
+                if (iter.getSheetName().equalsIgnoreCase(tableName)) {
+                    in = tmp;
+                } else {
+                    tmp.close();
+                }
+            }
+            if (in == null) {
+                throw new DataSetException("Missing the sheet " + tableName + " in the workbook " + file);
+            }
+            xml = FACTORY.createXMLStreamReader(in);
+
+            Object[] header = readRow();
+            if (header == null) {
+                throw new DataSetException("Missing the header row in the sheet " + tableName + " of the workbook " + file);
+            }
+            columnCount = header.length;
+            Column[] columns = new Column[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                if (header[i] == null) {
+                    throw new DataSetException("Missing the column name " + (i + 1) + " in the sheet " + tableName + " of the workbook " + file);
+                }
+                columns[i] = new Column(header[i].toString().trim(), DataType.UNKNOWN);
+            }
+            metaData = new DefaultTableMetaData(tableName, columns);
+        } catch (Exception ex) {
+            closeQuietly();
+            if (ex instanceof DataSetException) {
+                throw (DataSetException) ex;
+            }
+            throw new DataSetException("Error reading the sheet " + tableName + " of the workbook " + file, ex);
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public ITableMetaData getTableMetaData() {
+        return metaData;
+    }
+
+    /**
+     * Gets the row count. This method reads the rest of the sheet into the
+     * memory.
+     *
+     * @return the row count.
+     */
+    @Override
+    public int getRowCount() {
+        try {
+            buffer();
+        } catch (DataSetException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return rows.size();
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int getRowsRead() {
+        if (rows != null) {
+            return rows.size();
+        }
+        return row + 1;
+    }
+
+    /**
+     * The compressed sheet does not give the read fraction.
+     *
+     * @return {@code 1} for the finished table otherwise {@code -1}.
+     */
+    @Override
+    public double getProgress() {
+        if (rows != null || finished) {
+            return 1;
+        }
+        return -1;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public Object getValue(int row, String column) throws DataSetException {
+        int index = metaData.getColumnIndex(column);
+        if (rows != null) {
+            if (row < 0 || row >= rows.size()) {
+                throw new RowOutOfBoundsException(row + " >= " + rows.size());
+            }
+            return rows.get(row)[index];
+        }
+        if (row < this.row) {
+            throw new DataSetException("The streaming table " + metaData.getTableName() + " is forward only. Row " + row + " < " + this.row);
+        }
+        while (this.row < row) {
+            current = finished ? null : nextRow();
+            if (current == null) {
+                closeQuietly();
+                throw new RowOutOfBoundsException(row + " > " + this.row);
+            }
+            this.row++;
+        }
+        return current[index];
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void close() throws IOException {
+        finished = true;
+        try {
+            if (xml != null) {
+                xml.close();
+            }
+        } catch (XMLStreamException ex) {
+            throw new IOException(ex);
+        } finally {
+            if (in != null) {
+                in.close();
+            }
+            pkg.revert();
+        }
+    }
+
+    /**
+     * Reads the next row of the data.
+     *
+     * @return the next row or {@code null} at the end of the sheet.
+     * @throws DataSetException if the method fails.
+     */
+    private Object[] nextRow() throws DataSetException {
+        try {
+            return readRow();
+        } catch (XMLStreamException ex) {
+            throw new DataSetException("Error reading the sheet " + metaData.getTableName() + " of the workbook " + file, ex);
+        }
+    }
+
+    /**
+     * Reads the next non empty row. The row of the data has at least the
+     * cells up to the last non empty cell, the cells after the last column
+     * of the header are ignored.
+     *
+     * @return the next row or {@code null} at the end of the sheet.
+     * @throws XMLStreamException if the method fails.
+     */
+    private Object[] readRow() throws XMLStreamException {
+        while (xml.hasNext()) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT && "row".equals(xml.getLocalName())) {
+                Object[] result = new Object[Math.max(columnCount, 16)];
+                int last = -1;
+                int column = 0;
+                while (xml.hasNext()) {
+                    event = xml.next();
+                    if (event == XMLStreamConstants.END_ELEMENT && "row".equals(xml.getLocalName())) {
+                        break;
+                    }
+                    if (event == XMLStreamConstants.START_ELEMENT && "c".equals(xml.getLocalName())) {
+                        String ref = xml.getAttributeValue(null, "r");
+                        if (ref != null) {
+                            column = getColumnIndex(ref);
+                        }
+                        Object value = readCell();
+                        if (value != null && (columnCount == 0 || column < columnCount)) {
+                            if (column >= result.length) {
+                                result = Arrays.copyOf(result, Math.max(column + 1, result.length * 2));
+                            }
+                            result[column] = value;
+                            last = Math.max(last, column);
+                        }
+                        column++;
+                    }
+                }
+                if (last >= 0) {
+                    return Arrays.copyOf(result, columnCount == 0 ? last + 1 : columnCount);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads the value of the current cell element.
+     *
+     * @return the cell value or {@code null} for the empty cell.
+     * @throws XMLStreamException if the method fails.
+     */
+    private Object readCell() throws XMLStreamException {
+        String type = xml.getAttributeValue(null, "t");
+        String style = xml.getAttributeValue(null, "s");
+        StringBuilder text = null;
+        while (xml.hasNext()) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.END_ELEMENT && "c".equals(xml.getLocalName())) {
+                break;
+            }
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                String name = xml.getLocalName();
+                if ("rPh".equals(name)) {
+                    // skip the phonetic text of the inline string
+                    skipElement();
+                } else if ("v".equals(name) || "t".equals(name)) {
+                    if (text == null) {
+                        text = new StringBuilder();
+                    }
+                    text.append(xml.getElementText());
+                }
+            }
+        }
+        if (text == null || (text.length() == 0 && !"inlineStr".equals(type) && !"str".equals(type))) {
+            return null;
+        }
+        String value = text.toString();
+        if (type == null || "n".equals(type)) {
+            if (style != null && isDateStyle(Integer.parseInt(style))) {
+                return DateUtil.getJavaDate(Double.parseDouble(value));
+            }
+            return new BigDecimal(value);
+        }
+        switch (type) {
+            case "s":
+                return strings.getEntryAt(Integer.parseInt(value));
+            case "b":
+                return "1".equals(value);
+            default:
+                return value;
+        }
+    }
+
+    /**
+     * Skips the current element with its content.
+     *
+     * @throws XMLStreamException if the method fails.
+     */
+    private void skipElement() throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && xml.hasNext()) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Returns {@code true} if the style has the date format.
+     *
+     * @param index the style index.
+     * @return {@code true} if the style has the date format.
+     */
+    private boolean isDateStyle(int index) {
+        return dateStyles.computeIfAbsent(index, (Integer i) -> {
+            if (styles == null || i >= styles.getNumCellStyles()) {
+                return false;
+            }
+            XSSFCellStyle cellStyle = styles.getStyleAt(i);
+            return DateUtil.isADateFormat(cellStyle.getDataFormat(), cellStyle.getDataFormatString());
+        });
+    }
+
+    /**
+     * Gets the zero based column index of the cell reference.
+     *
+     * @param ref the cell reference for example {@code AB12}.
+     * @return the column index.
+     */
+    private static int getColumnIndex(String ref) {
+        int result = 0;
+        for (int i = 0; i < ref.length(); i++) {
+            char c = ref.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                break;
+            }
+            result = result * 26 + (c - 'A' + 1);
+        }
+        return result - 1;
+    }
+
+    /**
+     * Reads the rest of the sheet to the memory.
+     *
+     * @throws DataSetException if the method fails.
+     */
+    private void buffer() throws DataSetException {
+        if (rows != null) {
+            return;
+        }
+        if (row > 0) {
+            throw new DataSetException("The streaming table " + metaData.getTableName() + " could not be buffered after row " + row);
+        }
+        List<Object[]> tmp = new ArrayList<>();
+        if (row == 0) {
+            tmp.add(current);
+        }
+        if (!finished) {
+            Object[] next = nextRow();
+            while (next != null) {
+                tmp.add(next);
+                next = nextRow();
+            }
+            closeQuietly();
+        }
+        rows = tmp;
+    }
+
+    /**
+     * Closes the workbook and ignore the exception.
+     */
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException ex) {
+            // ignore the exception
+        }
+    }
+}
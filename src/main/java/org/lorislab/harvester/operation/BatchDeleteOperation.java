@@ -0,0 +1,133 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.operation;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableIterator;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.RowOutOfBoundsException;
+import org.dbunit.dataset.datatype.TypeCastException;
+import org.dbunit.operation.AbstractOperation;
+import org.dbunit.operation.DatabaseOperation;
+
+/**
+ * The batch delete operation. The operation deletes the rows of the data set
+ * by the primary key with one delete statement per table executed in the JDBC
+ * batches. The tables are processed in the reverse order of the data set like
+ * in the {@link DatabaseOperation#DELETE} operation, but the rows of the
+ * table are read in the file order. The operation does not need the row count
+ * of the table and works with the forward only streaming tables.
+ *
+ * @author Andrej_Petras
+ */
+public class BatchDeleteOperation extends AbstractOperation {
+
+    /**
+     * The logger for this class.
+     */
+    private static final Logger LOGGER = Logger.getLogger(BatchDeleteOperation.class.getName());
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void execute(IDatabaseConnection connection, IDataSet dataSet) throws DatabaseUnitException, SQLException {
+        int batchSize = BatchInsertOperation.getBatchSize(connection);
+        IDataSet databaseDataSet = connection.createDataSet();
+
+        ITableIterator iterator = dataSet.reverseIterator();
+        while (iterator.next()) {
+            ITable table = iterator.getTable();
+            ITableMetaData metaData = table.getTableMetaData();
+            String tableName = metaData.getTableName();
+
+            Column[] columns = metaData.getColumns();
+            if (columns.length == 0) {
+                continue;
+            }
+            ITableMetaData dbMetaData = databaseDataSet.getTableMetaData(tableName);
+            Column[] dbColumns = BatchInsertOperation.getDatabaseColumns(dbMetaData, columns);
+            int[] keys = BatchInsertOperation.getKeyIndexes(dbMetaData, dbColumns);
+            String sql = createDeleteSql(connection, tableName, dbColumns, keys);
+            LOGGER.log(Level.FINE, "Batch statement: {0}", sql);
+
+            int rows = 0;
+            try (PreparedStatement statement = connection.getConnection().prepareStatement(sql)) {
+                int count = 0;
+                try {
+                    for (int row = 0;; row++) {
+                        for (int k = 0; k < keys.length; k++) {
+                            Column column = dbColumns[keys[k]];
+                            Object value = table.getValue(row, columns[keys[k]].getColumnName());
+                            if (value == ITable.NO_VALUE) {
+                                value = null;
+                            }
+                            try {
+                                column.getDataType().setSqlValue(value, k + 1, statement);
+                            } catch (TypeCastException ex) {
+                                throw new DataSetException("Error convert the value of the column " + column.getColumnName()
+                                        + " in the table " + tableName + " row " + row, ex);
+                            }
+                        }
+                        statement.addBatch();
+                        rows++;
+                        count++;
+                        if (count >= batchSize) {
+                            statement.executeBatch();
+                            count = 0;
+                        }
+                    }
+                } catch (RowOutOfBoundsException ex) {
+                    // end of the table
+                }
+                if (count > 0) {
+                    statement.executeBatch();
+                }
+            }
+            LOGGER.log(Level.FINE, "Table {0} deleted rows {1}", new Object[]{tableName, rows});
+        }
+    }
+
+    /**
+     * Creates the delete SQL statement by the primary key.
+     *
+     * @param connection the database connection.
+     * @param tableName the table name.
+     * @param columns the database columns.
+     * @param keys the indexes of the primary key columns.
+     * @return the delete SQL statement.
+     */
+    private String createDeleteSql(IDatabaseConnection connection, String tableName, Column[] columns, int[] keys) {
+        StringBuilder sql = new StringBuilder();
+        sql.append("delete from ").append(getQualifiedName(connection.getSchema(), tableName, connection)).append(" where ");
+        for (int k = 0; k < keys.length; k++) {
+            if (k > 0) {
+                sql.append(" and ");
+            }
+            sql.append(getQualifiedName(null, columns[keys[k]].getColumnName(), connection)).append(" = ?");
+        }
+        return sql.toString();
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.operation;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.Columns;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableIterator;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.NoPrimaryKeyException;
+import org.dbunit.dataset.NoSuchColumnException;
+import org.dbunit.dataset.RowOutOfBoundsException;
+import org.dbunit.dataset.datatype.TypeCastException;
+import org.dbunit.operation.AbstractOperation;
+
+/**
+ * The batch insert operation. The operation prepares one insert statement per
+ * table and executes the rows in the JDBC batches. The batch size is taken from
+ * the {@link DatabaseConfig#PROPERTY_BATCH_SIZE} of the connection. The
+ * subclasses could replace the statement by the {@link #createSql} method,
+ * the parameters of the statement are the values of the data set columns.
+ *
+ * @author Andrej_Petras
+ */
+public class BatchInsertOperation extends AbstractOperation {
+
+    /**
+     * The logger for this class.
+     */
+    private static final Logger LOGGER = Logger.getLogger(BatchInsertOperation.class.getName());
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void execute(IDatabaseConnection connection, IDataSet dataSet) throws DatabaseUnitException, SQLException {
+        int batchSize = getOperationBatchSize(connection);
+        IDataSet databaseDataSet = connection.createDataSet();
+
+        ITableIterator iterator = dataSet.iterator();
+        while (iterator.next()) {
+            ITable table = iterator.getTable();
+            ITableMetaData metaData = table.getTableMetaData();
+            String tableName = metaData.getTableName();
+
+            Column[] columns = metaData.getColumns();
+            if (columns.length == 0) {
+                continue;
+            }
+            ITableMetaData dbMetaData = databaseDataSet.getTableMetaData(tableName);
+            Column[] dbColumns = getDatabaseColumns(dbMetaData, columns);
+            String sql = createSql(connection, dbMetaData, dbColumns);
+            LOGGER.log(Level.FINE, "Batch statement: {0}", sql);
+
+            int rows = 0;
+            try (PreparedStatement statement = connection.getConnection().prepareStatement(sql)) {
+                int count = 0;
+                try {
+                    for (int row = 0;; row++) {
+                        for (int i = 0; i < columns.length; i++) {
+                            Object value = table.getValue(row, columns[i].getColumnName());
+                            if (value == ITable.NO_VALUE) {
+                                value = null;
+                            }
+                            try {
+                                dbColumns[i].getDataType().setSqlValue(value, i + 1, statement);
+                            } catch (TypeCastException ex) {
+                                throw new DataSetException("Error convert the value of the column " + columns[i].getColumnName()
+                                        + " in the table " + tableName + " row " + row, ex);
+                            }
+                        }
+                        statement.addBatch();
+                        rows++;
+                        count++;
+                        if (count >= batchSize) {
+                            statement.executeBatch();
+                            afterBatch(connection, tableName);
+                            count = 0;
+                        }
+                    }
+                } catch (RowOutOfBoundsException ex) {
+                    // end of the table
+                }
+                if (count > 0) {
+                    statement.executeBatch();
+                    afterBatch(connection, tableName);
+                }
+            }
+            LOGGER.log(Level.FINE, "Table {0} executed rows {1}", new Object[]{tableName, rows});
+            afterTable(connection, tableName);
+        }
+    }
+
+    /**
+     * Creates the SQL statement of the table. The default statement is the
+     * insert statement.
+     *
+     * @param connection the database connection.
+     * @param metaData the database table meta data.
+     * @param columns the database columns.
+     * @return the SQL statement.
+     * @throws DataSetException if the method fails.
+     */
+    protected String createSql(IDatabaseConnection connection, ITableMetaData metaData, Column[] columns) throws DataSetException {
+        return createInsertSql(connection, metaData.getTableName(), columns);
+    }
+
+    /**
+     * Gets the optimizer hint of the insert statement.
+     *
+     * @return the optimizer hint or {@code null}.
+     */
+    protected String getInsertHint() {
+        return null;
+    }
+
+    /**
+     * Gets the batch size of the operation. The default batch size is the
+     * batch size of the connection.
+     *
+     * @param connection the database connection.
+     * @return the batch size.
+     */
+    protected int getOperationBatchSize(IDatabaseConnection connection) {
+        return getBatchSize(connection);
+    }
+
+    /**
+     * Called after each executed batch of the table.
+     *
+     * @param connection the database connection.
+     * @param tableName the table name.
+     * @throws SQLException if the method fails.
+     */
+    protected void afterBatch(IDatabaseConnection connection, String tableName) throws SQLException {
+        // no action by default
+    }
+
+    /**
+     * Called after all rows of the table are executed.
+     *
+     * @param connection the database connection.
+     * @param tableName the table name.
+     * @throws SQLException if the method fails.
+     */
+    protected void afterTable(IDatabaseConnection connection, String tableName) throws SQLException {
+        // no action by default
+    }
+
+    /**
+     * Creates the insert SQL statement.
+     *
+     * @param connection the database connection.
+     * @param tableName the table name.
+     * @param columns the database columns.
+     * @return the insert SQL statement.
+     */
+    protected String createInsertSql(IDatabaseConnection connection, String tableName, Column[] columns) {
+        StringBuilder sql = new StringBuilder();
+        sql.append("insert ");
+        String hint = getInsertHint();
+        if (hint != null) {
+            sql.append(hint).append(' ');
+        }
+        sql.append("into ").append(getQualifiedName(connection.getSchema(), tableName, connection)).append(" (");
+        StringBuilder values = new StringBuilder();
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                sql.append(", ");
+                values.append(", ");
+            }
+            sql.append(getQualifiedName(null, columns[i].getColumnName(), connection));
+            values.append('?');
+        }
+        sql.append(") values (").append(values).append(')');
+        return sql.toString();
+    }
+
+    /**
+     * Gets the database columns for the data set columns.
+     *
+     * @param metaData the database table meta data.
+     * @param columns the data set columns.
+     * @return the corresponding database columns.
+     * @throws DataSetException if the column does not exists in the database.
+     */
+    protected static Column[] getDatabaseColumns(ITableMetaData metaData, Column[] columns) throws DataSetException {
+        Column[] dbColumns = metaData.getColumns();
+        Column[] result = new Column[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            result[i] = Columns.getColumn(columns[i].getColumnName(), dbColumns);
+            if (result[i] == null) {
+                throw new NoSuchColumnException(metaData.getTableName(), columns[i].getColumnName());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the indexes of the primary key columns in the database columns.
+     *
+     * @param metaData the database table meta data.
+     * @param columns the database columns.
+     * @return the indexes of the primary key columns.
+     * @throws DataSetException if the table has no primary key or the key
+     * column is not in the data set.
+     */
+    protected static int[] getKeyIndexes(ITableMetaData metaData, Column[] columns) throws DataSetException {
+        Column[] primaryKeys = metaData.getPrimaryKeys();
+        if (primaryKeys.length == 0) {
+            throw new NoPrimaryKeyException(metaData.getTableName());
+        }
+        int[] result = new int[primaryKeys.length];
+        for (int k = 0; k < primaryKeys.length; k++) {
+            result[k] = -1;
+            for (int i = 0; i < columns.length; i++) {
+                if (columns[i].getColumnName().equalsIgnoreCase(primaryKeys[k].getColumnName())) {
+                    result[k] = i;
+                }
+            }
+            if (result[k] < 0) {
+                throw new DataSetException("The primary key column " + primaryKeys[k].getColumnName()
+                        + " of the table " + metaData.getTableName() + " is missing in the data set");
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the indexes of the non key columns.
+     *
+     * @param columns the database columns.
+     * @param keys the indexes of the primary key columns.
+     * @return the indexes of the non key columns.
+     */
+    protected static int[] getValueIndexes(Column[] columns, int[] keys) {
+        int[] result = new int[columns.length - keys.length];
+        int index = 0;
+        for (int i = 0; i < columns.length; i++) {
+            boolean key = false;
+            for (int k : keys) {
+                key = key || k == i;
+            }
+            if (!key) {
+                result[index++] = i;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the batch size.
+     *
+     * @param connection the database connection.
+     * @return the batch size.
+     */
+    protected static int getBatchSize(IDatabaseConnection connection) {
+        Object value = connection.getConfig().getProperty(DatabaseConfig.PROPERTY_BATCH_SIZE);
+        if (value instanceof Integer && (Integer) value > 0) {
+            return (Integer) value;
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.operation;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * The constraint deferral of the database. The deferral collects the
+ * statements which disable the foreign key constraints and drop or disable
+ * the non-unique indexes of the tables before the load and the statements
+ * which restore them after the load.
+ *
+ * @author Andrej_Petras
+ */
+public interface ConstraintDeferral {
+
+    /**
+     * Collects the defer and restore statements of the tables. The restore
+     * statement at the same index in the list restores the defer statement.
+     *
+     * @param connection the connection.
+     * @param schema the schema or {@code null} for the current schema.
+     * @param tables the table names.
+     * @param defer the list of the defer statements.
+     * @param restore the list of the restore statements.
+     * @throws SQLException if the method fails.
+     */
+    void collect(Connection connection, String schema, List<String> tables, List<String> defer, List<String> restore) throws SQLException;
+
+    /**
+     * Quotes the identifier.
+     *
+     * @param name the identifier.
+     * @return the quoted identifier.
+     */
+    static String quote(String name) {
+        return "\"" + name.replace("\"", "\"\"") + "\"";
+    }
+}
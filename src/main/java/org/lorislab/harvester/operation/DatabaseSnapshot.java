@@ -0,0 +1,56 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.operation;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * The database native snapshot of the tables. The snapshot captures the
+ * loaded tables and the restore returns the tables to the captured state
+ * without the import of the data files.
+ *
+ * @author Andrej_Petras
+ */
+public interface DatabaseSnapshot {
+
+    /**
+     * Captures the snapshot of the tables. The previous snapshot with the
+     * same name is replaced.
+     *
+     * @param connection the connection.
+     * @param schema the schema or {@code null} for the current schema.
+     * @param tables the table names.
+     * @param name the snapshot name.
+     * @param directory the directory for the snapshot files.
+     * @throws SQLException if the method fails.
+     */
+    void snapshot(Connection connection, String schema, List<String> tables, String name, Path directory) throws SQLException;
+
+    /**
+     * Restores the tables from the snapshot.
+     *
+     * @param connection the connection.
+     * @param schema the schema or {@code null} for the current schema.
+     * @param tables the table names.
+     * @param name the snapshot name.
+     * @param directory the directory of the snapshot files.
+     * @throws SQLException if the method fails.
+     */
+    void restore(Connection connection, String schema, List<String> tables, String name, Path directory) throws SQLException;
+}
@@ -0,0 +1,535 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.operation;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableIterator;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.RowOutOfBoundsException;
+import org.dbunit.dataset.datatype.TypeCastException;
+
+/**
+ * The diff refresh operation. The operation reads the database table ordered
+ * by the primary key and merge-joins it with the data set table sorted by the
+ * same primary key. Only the differences are written in the JDBC batches: the
+ * missing rows are inserted, the changed rows are updated and the rows which
+ * are not in the data set are deleted. The values are compared with the data
+ * type of the database column.
+ *
+ * The primary keys of the deleted rows are kept in the memory and deleted
+ * after all tables in the reverse order of the tables, so the child rows are
+ * deleted before their parents. The operation fails if the data set table or
+ * the database table is not in the ascending order of the primary key, for
+ * example if the database sorts the string keys by the linguistic collation.
+ * Every table has to be in the data set only once, the table split into the
+ * chunks would delete the rows of the other chunks.
+ *
+ * @author Andrej_Petras
+ */
+public class DiffRefreshOperation extends BatchInsertOperation {
+
+    /**
+     * The logger for this class.
+     */
+    private static final Logger LOGGER = Logger.getLogger(DiffRefreshOperation.class.getName());
+
+    /**
+     * The fetch size of the database table.
+     */
+    private static final int FETCH_SIZE = 1000;
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void execute(IDatabaseConnection connection, IDataSet dataSet) throws DatabaseUnitException, SQLException {
+        int batchSize = getBatchSize(connection);
+        IDataSet databaseDataSet = connection.createDataSet();
+        List<TableDeletes> deletes = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+
+        ITableIterator iterator = dataSet.iterator();
+        while (iterator.next()) {
+            ITable table = iterator.getTable();
+            ITableMetaData metaData = table.getTableMetaData();
+            String tableName = metaData.getTableName();
+            if (!names.add(tableName.toUpperCase())) {
+                throw new DataSetException("The table " + tableName + " is split in the data set, the diff refresh needs the whole table");
+            }
+
+            Column[] columns = metaData.getColumns();
+            if (columns.length == 0) {
+                continue;
+            }
+            ITableMetaData dbMetaData = databaseDataSet.getTableMetaData(tableName);
+            Column[] dbColumns = getDatabaseColumns(dbMetaData, columns);
+            int[] keys = getKeyIndexes(dbMetaData, dbColumns);
+            TableDeletes tableDeletes = diff(connection, table, tableName, columns, dbColumns, keys, batchSize);
+            if (!tableDeletes.keys.isEmpty()) {
+                deletes.add(tableDeletes);
+            }
+        }
+
+        for (int i = deletes.size() - 1; i >= 0; i--) {
+            TableDeletes item = deletes.get(i);
+            BatchStatement delete = new BatchStatement(connection.getConnection().prepareStatement(item.sql), batchSize);
+            try {
+                for (Object[] key : item.keys) {
+                    for (int k = 0; k < key.length; k++) {
+                        setValue(delete.statement, k + 1, item.keyColumns[k], key[k], item.tableName);
+                    }
+                    delete.add();
+                }
+                delete.flush();
+            } finally {
+                delete.statement.close();
+            }
+            LOGGER.log(Level.FINE, "Table {0} deleted rows {1}", new Object[]{item.tableName, delete.rows});
+        }
+    }
+
+    /**
+     * Merge-joins the data set table with the database table and writes the
+     * inserts and updates.
+     *
+     * @param connection the database connection.
+     * @param table the data set table.
+     * @param tableName the table name.
+     * @param columns the data set columns.
+     * @param dbColumns the database columns.
+     * @param keys the indexes of the primary key columns.
+     * @param batchSize the batch size.
+     * @return the primary keys of the rows to delete.
+     * @throws DatabaseUnitException if the method fails.
+     * @throws SQLException if the method fails.
+     */
+    private TableDeletes diff(IDatabaseConnection connection, ITable table, String tableName, Column[] columns, Column[] dbColumns,
+            int[] keys, int batchSize) throws DatabaseUnitException, SQLException {
+
+        int[] values = getValueIndexes(dbColumns, keys);
+        Column[] keyColumns = new Column[keys.length];
+        for (int k = 0; k < keys.length; k++) {
+            keyColumns[k] = dbColumns[keys[k]];
+        }
+        TableDeletes result = new TableDeletes(tableName, createDeleteSql(connection, tableName, keyColumns), keyColumns);
+
+        String select = createSelectSql(connection, tableName, dbColumns, keyColumns);
+        LOGGER.log(Level.FINE, "Diff refresh: {0}", select);
+
+        Connection con = connection.getConnection();
+        int unchanged = 0;
+        try (Statement query = con.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, ResultSet.HOLD_CURSORS_OVER_COMMIT);
+                PreparedStatement insertStatement = con.prepareStatement(createInsertSql(connection, tableName, dbColumns));
+                PreparedStatement updateStatement = values.length > 0 ? con.prepareStatement(createUpdateSql(connection, tableName, dbColumns, values, keyColumns)) : null) {
+
+            query.setFetchSize(FETCH_SIZE);
+            BatchStatement insert = new BatchStatement(insertStatement, batchSize);
+            BatchStatement update = new BatchStatement(updateStatement, batchSize);
+
+            try (ResultSet resultSet = query.executeQuery(select)) {
+                int row = 0;
+                Object[] item = readRow(table, row, columns, dbColumns);
+                Object[] dbItem = readRow(resultSet, dbColumns);
+                while (item != null || dbItem != null) {
+                    int cmp;
+                    if (item == null) {
+                        cmp = 1;
+                    } else if (dbItem == null) {
+                        cmp = -1;
+                    } else {
+                        cmp = compare(item, dbItem, keys, dbColumns, tableName);
+                    }
+
+                    if (cmp < 0) {
+                        for (int i = 0; i < dbColumns.length; i++) {
+                            setValue(insert.statement, i + 1, dbColumns[i], item[i], tableName);
+                        }
+                        insert.add();
+                    } else if (cmp > 0) {
+                        Object[] key = new Object[keys.length];
+                        for (int k = 0; k < keys.length; k++) {
+                            key[k] = dbItem[keys[k]];
+                        }
+                        result.keys.add(key);
+                    } else if (isChanged(item, dbItem, values, dbColumns, tableName)) {
+                        int index = 1;
+                        for (int i : values) {
+                            setValue(update.statement, index++, dbColumns[i], item[i], tableName);
+                        }
+                        for (int k : keys) {
+                            setValue(update.statement, index++, dbColumns[k], item[k], tableName);
+                        }
+                        update.add();
+                    } else {
+                        unchanged++;
+                    }
+
+                    if (cmp <= 0) {
+                        row++;
+                        Object[] next = readRow(table, row, columns, dbColumns);
+                        if (next != null && compare(item, next, keys, dbColumns, tableName) >= 0) {
+                            throw new DataSetException("The table " + tableName + " is not sorted by the primary key at the row " + row);
+                        }
+                        item = next;
+                    }
+                    if (cmp >= 0) {
+                        Object[] next = readRow(resultSet, dbColumns);
+                        if (next != null && compare(dbItem, next, keys, dbColumns, tableName) >= 0) {
+                            throw new DataSetException("The database table " + tableName
+                                    + " is not returned in the ascending order of the primary key, check the collation of the key columns");
+                        }
+                        dbItem = next;
+                    }
+                }
+            }
+            insert.flush();
+            update.flush();
+            LOGGER.log(Level.FINE, "Table {0} inserted rows {1} updated rows {2} unchanged rows {3} rows to delete {4}",
+                    new Object[]{tableName, insert.rows, update.rows, unchanged, result.keys.size()});
+        }
+        afterTable(connection, tableName);
+        return result;
+    }
+
+    /**
+     * Reads the row of the data set table converted to the data types of the
+     * database columns.
+     *
+     * @param table the data set table.
+     * @param row the row index.
+     * @param columns the data set columns.
+     * @param dbColumns the database columns.
+     * @return the row values or {@code null} at the end of the table.
+     * @throws DataSetException if the method fails.
+     */
+    private static Object[] readRow(ITable table, int row, Column[] columns, Column[] dbColumns) throws DataSetException {
+        Object[] result = new Object[columns.length];
+        try {
+            for (int i = 0; i < columns.length; i++) {
+                Object value = table.getValue(row, columns[i].getColumnName());
+                if (value == ITable.NO_VALUE) {
+                    value = null;
+                }
+                try {
+                    result[i] = dbColumns[i].getDataType().typeCast(value);
+                } catch (TypeCastException ex) {
+                    throw new DataSetException("Error convert the value of the column " + columns[i].getColumnName()
+                            + " in the table " + table.getTableMetaData().getTableName() + " row " + row, ex);
+                }
+            }
+        } catch (RowOutOfBoundsException ex) {
+            return null;
+        }
+        return result;
+    }
+
+    /**
+     * Reads the next row of the database table.
+     *
+     * @param resultSet the result set.
+     * @param dbColumns the database columns.
+     * @return the row values or {@code null} at the end of the result set.
+     * @throws DataSetException if the method fails.
+     * @throws SQLException if the method fails.
+     */
+    private static Object[] readRow(ResultSet resultSet, Column[] dbColumns) throws DataSetException, SQLException {
+        if (!resultSet.next()) {
+            return null;
+        }
+        Object[] result = new Object[dbColumns.length];
+        for (int i = 0; i < dbColumns.length; i++) {
+            try {
+                result[i] = dbColumns[i].getDataType().getSqlValue(i + 1, resultSet);
+            } catch (TypeCastException ex) {
+                throw new DataSetException("Error reading the column " + dbColumns[i].getColumnName(), ex);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Compares the primary keys of the rows.
+     *
+     * @param row1 the first row.
+     * @param row2 the second row.
+     * @param keys the indexes of the primary key columns.
+     * @param dbColumns the database columns.
+     * @param tableName the table name.
+     * @return the comparison result of the primary keys.
+     * @throws DataSetException if the method fails.
+     */
+    private static int compare(Object[] row1, Object[] row2, int[] keys, Column[] dbColumns, String tableName) throws DataSetException {
+        for (int k : keys) {
+            int result = compare(dbColumns[k], row1[k], row2[k], tableName);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns {@code true} if any non key value of the rows is different.
+     *
+     * @param row the data set row.
+     * @param dbRow the database row.
+     * @param values the indexes of the non key columns.
+     * @param dbColumns the database columns.
+     * @param tableName the table name.
+     * @return {@code true} if the row is changed.
+     * @throws DataSetException if the method fails.
+     */
+    private static boolean isChanged(Object[] row, Object[] dbRow, int[] values, Column[] dbColumns, String tableName) throws DataSetException {
+        for (int i : values) {
+            if (compare(dbColumns[i], row[i], dbRow[i], tableName) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compares the values with the data type of the column.
+     *
+     * @param column the database column.
+     * @param value1 the first value.
+     * @param value2 the second value.
+     * @param tableName the table name.
+     * @return the comparison result.
+     * @throws DataSetException if the method fails.
+     */
+    private static int compare(Column column, Object value1, Object value2, String tableName) throws DataSetException {
+        try {
+            return column.getDataType().compare(value1, value2);
+        } catch (TypeCastException ex) {
+            throw new DataSetException("Error compare the values of the column " + column.getColumnName() + " in the table " + tableName, ex);
+        }
+    }
+
+    /**
+     * Sets the value of the statement parameter.
+     *
+     * @param statement the statement.
+     * @param index the parameter index.
+     * @param column the database column.
+     * @param value the value.
+     * @param tableName the table name.
+     * @throws DataSetException if the method fails.
+     * @throws SQLException if the method fails.
+     */
+    private static void setValue(PreparedStatement statement, int index, Column column, Object value, String tableName) throws DataSetException, SQLException {
+        try {
+            column.getDataType().setSqlValue(value, index, statement);
+        } catch (TypeCastException ex) {
+            throw new DataSetException("Error convert the value of the column " + column.getColumnName() + " in the table " + tableName, ex);
+        }
+    }
+
+    /**
+     * Creates the select SQL statement ordered by the primary key.
+     *
+     * @param connection the database connection.
+     * @param tableName the table name.
+     * @param columns the database columns.
+     * @param keyColumns the primary key columns.
+     * @return the select SQL statement.
+     */
+    private String createSelectSql(IDatabaseConnection connection, String tableName, Column[] columns, Column[] keyColumns) {
+        StringBuilder sql = new StringBuilder();
+        sql.append("select ");
+        appendColumns(sql, connection, columns, ", ", "");
+        sql.append(" from ").append(getQualifiedName(connection.getSchema(), tableName, connection));
+        sql.append(" order by ");
+        appendColumns(sql, connection, keyColumns, ", ", "");
+        return sql.toString();
+    }
+
+    /**
+     * Creates the update SQL statement by the primary key.
+     *
+     * @param connection the database connection.
+     * @param tableName the table name.
+     * @param dbColumns the database columns.
+     * @param values the indexes of the non key columns.
+     * @param keyColumns the primary key columns.
+     * @return the update SQL statement.
+     */
+    private String createUpdateSql(IDatabaseConnection connection, String tableName, Column[] dbColumns, int[] values, Column[] keyColumns) {
+        Column[] valueColumns = new Column[values.length];
+        for (int i = 0; i < values.length; i++) {
+            valueColumns[i] = dbColumns[values[i]];
+        }
+        StringBuilder sql = new StringBuilder();
+        sql.append("update ").append(getQualifiedName(connection.getSchema(), tableName, connection)).append(" set ");
+        appendColumns(sql, connection, valueColumns, ", ", " = ?");
+        sql.append(" where ");
+        appendColumns(sql, connection, keyColumns, " and ", " = ?");
+        return sql.toString();
+    }
+
+    /**
+     * Creates the delete SQL statement by the primary key.
+     *
+     * @param connection the database connection.
+     * @param tableName the table name.
+     * @param keyColumns the primary key columns.
+     * @return the delete SQL statement.
+     */
+    private String createDeleteSql(IDatabaseConnection connection, String tableName, Column[] keyColumns) {
+        StringBuilder sql = new StringBuilder();
+        sql.append("delete from ").append(getQualifiedName(connection.getSchema(), tableName, connection)).append(" where ");
+        appendColumns(sql, connection, keyColumns, " and ", " = ?");
+        return sql.toString();
+    }
+
+    /**
+     * Appends the column names to the SQL statement.
+     *
+     * @param sql the SQL statement.
+     * @param connection the database connection.
+     * @param columns the columns.
+     * @param separator the separator of the columns.
+     * @param suffix the suffix of each column.
+     */
+    private void appendColumns(StringBuilder sql, IDatabaseConnection connection, Column[] columns, String separator, String suffix) {
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                sql.append(separator);
+            }
+            sql.append(getQualifiedName(null, columns[i].getColumnName(), connection)).append(suffix);
+        }
+    }
+
+    /**
+     * The primary keys of the rows to delete from the table.
+     */
+    private static class TableDeletes {
+
+        /**
+         * The table name.
+         */
+        private final String tableName;
+
+        /**
+         * The delete SQL statement.
+         */
+        private final String sql;
+
+        /**
+         * The primary key columns.
+         */
+        private final Column[] keyColumns;
+
+        /**
+         * The primary keys.
+         */
+        private final List<Object[]> keys = new ArrayList<>();
+
+        /**
+         * The default constructor.
+         *
+         * @param tableName the table name.
+         * @param sql the delete SQL statement.
+         * @param keyColumns the primary key columns.
+         */
+        TableDeletes(String tableName, String sql, Column[] keyColumns) {
+            this.tableName = tableName;
+            this.sql = sql;
+            this.keyColumns = keyColumns;
+        }
+    }
+
+    /**
+     * The prepared statement executed in the JDBC batches.
+     */
+    private static class BatchStatement {
+
+        /**
+         * The prepared statement.
+         */
+        private final PreparedStatement statement;
+
+        /**
+         * The batch size.
+         */
+        private final int batchSize;
+
+        /**
+         * The number of the rows in the current batch.
+         */
+        private int count;
+
+        /**
+         * The number of all added rows.
+         */
+        private int rows;
+
+        /**
+         * The default constructor.
+         *
+         * @param statement the prepared statement.
+         * @param batchSize the batch size.
+         */
+        BatchStatement(PreparedStatement statement, int batchSize) {
+            this.statement = statement;
+            this.batchSize = batchSize;
+        }
+
+        /**
+         * Adds the current parameters to the batch and executes the full
+         * batch.
+         *
+         * @throws SQLException if the method fails.
+         */
+        void add() throws SQLException {
+            statement.addBatch();
+            rows++;
+            count++;
+            if (count >= batchSize) {
+                statement.executeBatch();
+                count = 0;
+            }
+        }
+
+        /**
+         * Executes the rest of the batch.
+         *
+         * @throws SQLException if the method fails.
+         */
+        void flush() throws SQLException {
+            if (count > 0) {
+                statement.executeBatch();
+                count = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.operation;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.lorislab.harvester.operation.ConstraintDeferral.quote;
+
+/**
+ * The H2 constraint deferral. The referential integrity of the tables is
+ * switched off and the non-unique indexes which do not belong to any
+ * constraint are dropped. The indexes are created again from the SQL of the
+ * information schema and the referential integrity is switched on with the
+ * check of the existing rows.
+ *
+ * @author Andrej_Petras
+ */
+public class H2ConstraintDeferral implements ConstraintDeferral {
+
+    /**
+     * The non-unique indexes query.
+     */
+    private static final String INDEXES = "SELECT DISTINCT TABLE_SCHEMA, TABLE_NAME, INDEX_NAME, SQL FROM INFORMATION_SCHEMA.INDEXES"
+            + " WHERE TABLE_SCHEMA = COALESCE(?, SCHEMA()) AND UPPER(TABLE_NAME) = UPPER(?)"
+            + " AND NON_UNIQUE = TRUE AND PRIMARY_KEY = FALSE AND CONSTRAINT_NAME IS NULL";
+
+    /**
+     * The table query.
+     */
+    private static final String TABLE = "SELECT TABLE_SCHEMA, TABLE_NAME FROM INFORMATION_SCHEMA.TABLES"
+            + " WHERE TABLE_SCHEMA = COALESCE(?, SCHEMA()) AND UPPER(TABLE_NAME) = UPPER(?)";
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void collect(Connection connection, String schema, List<String> tables, List<String> defer, List<String> restore) throws SQLException {
+        try (PreparedStatement tableStatement = connection.prepareStatement(TABLE);
+                PreparedStatement indexStatement = connection.prepareStatement(INDEXES)) {
+            for (String table : tables) {
+                tableStatement.setString(1, schema);
+                tableStatement.setString(2, table);
+                try (ResultSet rs = tableStatement.executeQuery()) {
+                    while (rs.next()) {
+                        String name = quote(rs.getString(1)) + "." + quote(rs.getString(2));
+                        defer.add("ALTER TABLE " + name + " SET REFERENTIAL_INTEGRITY FALSE");
+                        restore.add("ALTER TABLE " + name + " SET REFERENTIAL_INTEGRITY TRUE CHECK");
+                    }
+                }
+
+                indexStatement.setString(1, schema);
+                indexStatement.setString(2, table);
+                try (ResultSet rs = indexStatement.executeQuery()) {
+                    while (rs.next()) {
+                        defer.add("DROP INDEX " + quote(rs.getString(1)) + "." + quote(rs.getString(3)));
+                        restore.add(rs.getString(4));
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.operation;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.csv.CsvDataSetWriter;
+import org.dbunit.operation.AbstractOperation;
+import org.dbunit.operation.DatabaseOperation;
+import org.lorislab.harvester.dataset.StreamingCsvDataSet;
+
+/**
+ * The H2 CSV read operation. The CSV file of the table is loaded by the
+ * database with the {@code INSERT INTO ... SELECT * FROM CSVREAD(...)}
+ * statement, so the file has to be readable by the database process. The
+ * data set which is not the {@link StreamingCsvDataSet} or has the compressed
+ * CSV files is inserted by the {@link DatabaseOperation#INSERT} operation.
+ *
+ * The H2 CSV reader uses the same separator, quote, escape character and
+ * null value and trims the unquoted values, but it differs from the
+ * {@link org.lorislab.harvester.dataset.CsvRecordReader} in these cases:
+ * the empty unquoted value is loaded as {@code NULL} instead of the empty
+ * string, the quoted {@code "null"} value is loaded as the string, the text
+ * after the closing quote starts the next value and the values are converted
+ * to the column types by H2 instead of the DB-Unit data types.
+ *
+ * @author Andrej_Petras
+ */
+public class H2CsvReadOperation extends AbstractOperation {
+
+    /**
+     * The logger for this class.
+     */
+    private static final Logger LOGGER = Logger.getLogger(H2CsvReadOperation.class.getName());
+
+    /**
+     * The CSV options of the DB-Unit CSV format. The back slash escapes the
+     * next character in the H2 options, the escape option is the back
+     * slash.
+     */
+    private static final String OPTIONS = "charset=UTF-8 fieldSeparator=, fieldDelimiter=\" escape=\\\\ null=" + CsvDataSetWriter.NULL;
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void execute(IDatabaseConnection connection, IDataSet dataSet) throws DatabaseUnitException, SQLException {
+        if (!(dataSet instanceof StreamingCsvDataSet)) {
+            LOGGER.log(Level.INFO, "The data set is not the CSV data set, use the insert operation.");
+            DatabaseOperation.INSERT.execute(connection, dataSet);
+            return;
+        }
+        if (((StreamingCsvDataSet) dataSet).isCompressed()) {
+            LOGGER.log(Level.INFO, "The data set has the compressed CSV files, use the insert operation.");
+            DatabaseOperation.INSERT.execute(connection, dataSet);
+            return;
+        }
+        StreamingCsvDataSet csv = (StreamingCsvDataSet) dataSet;
+        IDataSet databaseDataSet = connection.createDataSet();
+
+        try (Statement statement = connection.getConnection().createStatement()) {
+            for (String tableName : csv.getTableNames()) {
+                Column[] columns = csv.getTableMetaData(tableName).getColumns();
+                if (columns.length == 0) {
+                    continue;
+                }
+                ITableMetaData metaData = databaseDataSet.getTableMetaData(tableName);
+                Column[] dbColumns = BatchInsertOperation.getDatabaseColumns(metaData, columns);
+
+                StringBuilder sql = new StringBuilder();
+                sql.append("insert into ").append(getQualifiedName(connection.getSchema(), metaData.getTableName(), connection)).append(" (");
+                for (int i = 0; i < dbColumns.length; i++) {
+                    if (i > 0) {
+                        sql.append(", ");
+                    }
+                    sql.append(getQualifiedName(null, dbColumns[i].getColumnName(), connection));
+                }
+                sql.append(") select * from CSVREAD(").append(literal(csv.getTableFile(tableName).toAbsolutePath().toString()))
+                        .append(", NULL, ").append(literal(OPTIONS)).append(')');
+                LOGGER.log(Level.FINE, "CSV read: {0}", sql);
+
+                long start = System.nanoTime();
+                int rows = statement.executeUpdate(sql.toString());
+                csv.record(tableName, rows, System.nanoTime() - start);
+                LOGGER.log(Level.FINE, "Table {0} inserted rows {1}", new Object[]{tableName, rows});
+            }
+        }
+    }
+
+    /**
+     * Creates the SQL string literal.
+     *
+     * @param value the value.
+     * @return the SQL string literal.
+     */
+    private static String literal(String value) {
+        return "'" + value.replace("'", "''") + "'";
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.operation;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.lorislab.harvester.operation.ConstraintDeferral.quote;
+
+/**
+ * The H2 database snapshot. The tables are written by the {@code SCRIPT}
+ * command with the drop statements to the compressed script file and the
+ * restore runs the script by the {@code RUNSCRIPT} command. The script file
+ * is written by the database, so the directory has to be accessible by the
+ * database server.
+ *
+ * @author Andrej_Petras
+ */
+public class H2DatabaseSnapshot implements DatabaseSnapshot {
+
+    /**
+     * The script file name.
+     */
+    private static final String SCRIPT_FILE_NAME = "database.h2.sql.gz";
+
+    /**
+     * The table query.
+     */
+    private static final String TABLE = "SELECT TABLE_SCHEMA, TABLE_NAME FROM INFORMATION_SCHEMA.TABLES"
+            + " WHERE TABLE_SCHEMA = COALESCE(?, SCHEMA()) AND UPPER(TABLE_NAME) = UPPER(?)";
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void snapshot(Connection connection, String schema, List<String> tables, String name, Path directory) throws SQLException {
+        List<String> names = new ArrayList<>();
+        try (PreparedStatement stmt = connection.prepareStatement(TABLE)) {
+            for (String table : tables) {
+                stmt.setString(1, schema);
+                stmt.setString(2, table);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        names.add(quote(rs.getString(1)) + "." + quote(rs.getString(2)));
+                    }
+                }
+            }
+        }
+        if (names.isEmpty()) {
+            throw new SQLException("No table of the snapshot " + name + " exists in the database");
+        }
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException ex) {
+            throw new SQLException("Error create the snapshot directory " + directory, ex);
+        }
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("SCRIPT DROP TO " + literal(getScriptFile(directory)) + " COMPRESSION GZIP TABLE " + String.join(", ", names));
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void restore(Connection connection, String schema, List<String> tables, String name, Path directory) throws SQLException {
+        Path file = getScriptFile(directory);
+        if (!Files.exists(file)) {
+            throw new SQLException("The snapshot " + name + " does not exists. File: " + file);
+        }
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("RUNSCRIPT FROM " + literal(file) + " COMPRESSION GZIP");
+        }
+    }
+
+    /**
+     * Gets the script file.
+     *
+     * @param directory the directory of the snapshot files.
+     * @return the script file.
+     */
+    private static Path getScriptFile(Path directory) {
+        return directory.resolve(SCRIPT_FILE_NAME).toAbsolutePath();
+    }
+
+    /**
+     * Creates the SQL string literal of the file name.
+     *
+     * @param file the file.
+     * @return the SQL string literal.
+     */
+    private static String literal(Path file) {
+        return "'" + file.toString().replace("'", "''") + "'";
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.operation;
+
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.ITableMetaData;
+
+/**
+ * The H2 merge operation. The rows are executed in the JDBC batches by the
+ * {@code MERGE INTO ... KEY (...) VALUES (...)} statement which updates the
+ * row with the same primary key or inserts the new row.
+ *
+ * @author Andrej_Petras
+ */
+public class H2MergeOperation extends BatchInsertOperation {
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    protected String createSql(IDatabaseConnection connection, ITableMetaData metaData, Column[] columns) throws DataSetException {
+        int[] keys = getKeyIndexes(metaData, columns);
+        StringBuilder sql = new StringBuilder();
+        sql.append("merge into ").append(getQualifiedName(connection.getSchema(), metaData.getTableName(), connection)).append(" (");
+        StringBuilder values = new StringBuilder();
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) {
+                sql.append(", ");
+                values.append(", ");
+            }
+            sql.append(getQualifiedName(null, columns[i].getColumnName(), connection));
+            values.append('?');
+        }
+        sql.append(") key (");
+        for (int k = 0; k < keys.length; k++) {
+            if (k > 0) {
+                sql.append(", ");
+            }
+            sql.append(getQualifiedName(null, columns[keys[k]].getColumnName(), connection));
+        }
+        sql.append(") values (").append(values).append(')');
+        return sql.toString();
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.operation;
+
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.operation.DatabaseOperation;
+
+/**
+ * The merge operation. The operation upserts the rows by the primary key with
+ * one merge statement per table executed in the JDBC batches. The merge
+ * statement is detected by the database product name. The database without
+ * the merge statement uses the {@link DatabaseOperation#REFRESH} operation.
+ *
+ * @author Andrej_Petras
+ */
+public class MergeOperation extends DatabaseOperation {
+
+    /**
+     * The logger for this class.
+     */
+    private static final Logger LOGGER = Logger.getLogger(MergeOperation.class.getName());
+
+    /**
+     * The merge operations by the part of the database product name.
+     */
+    private final Map<String, DatabaseOperation> operations = new LinkedHashMap<>();
+
+    /**
+     * The default constructor.
+     */
+    public MergeOperation() {
+        operations.put("H2", new H2MergeOperation());
+        operations.put("Oracle", new OracleMergeOperation());
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void execute(IDatabaseConnection connection, IDataSet dataSet) throws DatabaseUnitException, SQLException {
+        String dbName = connection.getConnection().getMetaData().getDatabaseProductName();
+        DatabaseOperation operation = null;
+        for (Map.Entry<String, DatabaseOperation> entry : operations.entrySet()) {
+            if (operation == null && dbName.contains(entry.getKey())) {
+                operation = entry.getValue();
+            }
+        }
+        if (operation == null) {
+            LOGGER.log(Level.INFO, "No merge statement for the database {0}, use the refresh operation.", dbName);
+            operation = DatabaseOperation.REFRESH;
+        }
+        operation.execute(connection, dataSet);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.operation;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.lorislab.harvester.operation.ConstraintDeferral.quote;
+
+/**
+ * The Oracle constraint deferral. The enabled foreign key constraints of
+ * the tables are disabled and the valid non-unique indexes are marked as
+ * unusable. The indexes are rebuilt and the constraints are enabled and
+ * validated after the load.
+ *
+ * @author Andrej_Petras
+ */
+public class OracleConstraintDeferral implements ConstraintDeferral {
+
+    /**
+     * The enabled foreign key constraints query.
+     */
+    private static final String CONSTRAINTS = "SELECT OWNER, TABLE_NAME, CONSTRAINT_NAME FROM ALL_CONSTRAINTS"
+            + " WHERE OWNER = NVL(?, USER) AND UPPER(TABLE_NAME) = UPPER(?)"
+            + " AND CONSTRAINT_TYPE = 'R' AND STATUS = 'ENABLED'";
+
+    /**
+     * The valid non-unique indexes query.
+     */
+    private static final String INDEXES = "SELECT OWNER, INDEX_NAME FROM ALL_INDEXES"
+            + " WHERE TABLE_OWNER = NVL(?, USER) AND UPPER(TABLE_NAME) = UPPER(?)"
+            + " AND UNIQUENESS = 'NONUNIQUE' AND STATUS = 'VALID' AND INDEX_TYPE IN ('NORMAL', 'BITMAP', 'FUNCTION-BASED NORMAL')";
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void collect(Connection connection, String schema, List<String> tables, List<String> defer, List<String> restore) throws SQLException {
+        try (PreparedStatement constraintStatement = connection.prepareStatement(CONSTRAINTS);
+                PreparedStatement indexStatement = connection.prepareStatement(INDEXES)) {
+            for (String table : tables) {
+                constraintStatement.setString(1, schema);
+                constraintStatement.setString(2, table);
+                try (ResultSet rs = constraintStatement.executeQuery()) {
+                    while (rs.next()) {
+                        String name = quote(rs.getString(1)) + "." + quote(rs.getString(2));
+                        String constraint = quote(rs.getString(3));
+                        defer.add("ALTER TABLE " + name + " DISABLE CONSTRAINT " + constraint);
+                        restore.add("ALTER TABLE " + name + " ENABLE VALIDATE CONSTRAINT " + constraint);
+                    }
+                }
+
+                indexStatement.setString(1, schema);
+                indexStatement.setString(2, table);
+                try (ResultSet rs = indexStatement.executeQuery()) {
+                    while (rs.next()) {
+                        String name = quote(rs.getString(1)) + "." + quote(rs.getString(2));
+                        defer.add("ALTER INDEX " + name + " UNUSABLE");
+                        restore.add("ALTER INDEX " + name + " REBUILD");
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.operation;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.lorislab.harvester.operation.ConstraintDeferral.quote;
+
+/**
+ * The Oracle database snapshot. The snapshot enables the row movement of the
+ * tables and creates the restore point, the restore flashbacks all tables to
+ * the restore point in one statement. The flashback uses the undo data, so
+ * the undo retention of the database limits the age of the snapshot and the
+ * DDL statements on the tables (for example the truncate) invalidate the
+ * snapshot.
+ *
+ * @author Andrej_Petras
+ */
+public class OracleDatabaseSnapshot implements DatabaseSnapshot {
+
+    /**
+     * The prefix of the restore point name.
+     */
+    private static final String RESTORE_POINT_PREFIX = "HARVESTER_";
+
+    /**
+     * The maximum length of the restore point name.
+     */
+    private static final int RESTORE_POINT_LENGTH = 30;
+
+    /**
+     * The error code of the missing restore point.
+     */
+    private static final int MISSING_RESTORE_POINT = 38780;
+
+    /**
+     * The table query.
+     */
+    private static final String TABLE = "SELECT OWNER, TABLE_NAME FROM ALL_TABLES"
+            + " WHERE OWNER = NVL(?, USER) AND UPPER(TABLE_NAME) = UPPER(?)";
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void snapshot(Connection connection, String schema, List<String> tables, String name, Path directory) throws SQLException {
+        List<String> names = getTables(connection, schema, tables, name);
+        String restorePoint = getRestorePoint(name);
+        try (Statement stmt = connection.createStatement()) {
+            for (String table : names) {
+                stmt.execute("ALTER TABLE " + table + " ENABLE ROW MOVEMENT");
+            }
+            try {
+                stmt.execute("DROP RESTORE POINT " + restorePoint);
+            } catch (SQLException ex) {
+                if (ex.getErrorCode() != MISSING_RESTORE_POINT) {
+                    throw ex;
+                }
+            }
+            stmt.execute("CREATE RESTORE POINT " + restorePoint);
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void restore(Connection connection, String schema, List<String> tables, String name, Path directory) throws SQLException {
+        List<String> names = getTables(connection, schema, tables, name);
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("FLASHBACK TABLE " + String.join(", ", names) + " TO RESTORE POINT " + getRestorePoint(name));
+        }
+    }
+
+    /**
+     * Gets the quoted qualified names of the existing tables.
+     *
+     * @param connection the connection.
+     * @param schema the schema or {@code null} for the current schema.
+     * @param tables the table names.
+     * @param name the snapshot name.
+     * @return the quoted qualified names of the tables.
+     * @throws SQLException if the method fails.
+     */
+    private static List<String> getTables(Connection connection, String schema, List<String> tables, String name) throws SQLException {
+        List<String> result = new ArrayList<>();
+        try (PreparedStatement stmt = connection.prepareStatement(TABLE)) {
+            for (String table : tables) {
+                stmt.setString(1, schema);
+                stmt.setString(2, table);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        result.add(quote(rs.getString(1)) + "." + quote(rs.getString(2)));
+                    }
+                }
+            }
+        }
+        if (result.isEmpty()) {
+            throw new SQLException("No table of the snapshot " + name + " exists in the database");
+        }
+        return result;
+    }
+
+    /**
+     * Gets the restore point name of the snapshot.
+     *
+     * @param name the snapshot name.
+     * @return the restore point name.
+     */
+    private static String getRestorePoint(String name) {
+        String result = RESTORE_POINT_PREFIX + name.toUpperCase(Locale.ENGLISH).replaceAll("[^A-Z0-9_]", "_");
+        if (result.length() > RESTORE_POINT_LENGTH) {
+            result = result.substring(0, RESTORE_POINT_LENGTH);
+        }
+        return result;
+    }
+}
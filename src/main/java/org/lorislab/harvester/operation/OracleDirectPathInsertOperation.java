@@ -0,0 +1,86 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.operation;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.dbunit.database.IDatabaseConnection;
+
+/**
+ * The Oracle direct-path insert operation. The rows are inserted with the
+ * {@code APPEND_VALUES} hint in the JDBC batches above the high water mark
+ * of the table. The direct-path inserted table could not be modified again in
+ * the same transaction (ORA-12838), therefore the transaction is committed
+ * after each batch. Each batch is a separate direct-path load, the batch size
+ * is at least {@value #DIRECT_PATH_BATCH_SIZE} rows.
+ *
+ * @author Andrej_Petras
+ */
+public class OracleDirectPathInsertOperation extends BatchInsertOperation {
+
+    /**
+     * The logger for this class.
+     */
+    private static final Logger LOGGER = Logger.getLogger(OracleDirectPathInsertOperation.class.getName());
+
+    /**
+     * The direct-path insert hint.
+     */
+    private static final String APPEND_VALUES = "/*+ APPEND_VALUES */";
+
+    /**
+     * The minimal batch size of the direct-path insert.
+     */
+    static final int DIRECT_PATH_BATCH_SIZE = 10000;
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    protected String getInsertHint() {
+        return APPEND_VALUES;
+    }
+
+    /**
+     * Gets the batch size of the connection but at least
+     * {@value #DIRECT_PATH_BATCH_SIZE} rows.
+     *
+     * @param connection the database connection.
+     * @return the batch size.
+     */
+    @Override
+    protected int getOperationBatchSize(IDatabaseConnection connection) {
+        return Math.max(getBatchSize(connection), DIRECT_PATH_BATCH_SIZE);
+    }
+
+    /**
+     * Commits the direct-path insert of the batch.
+     *
+     * @param connection the database connection.
+     * @param tableName the table name.
+     * @throws SQLException if the method fails.
+     */
+    @Override
+    protected void afterBatch(IDatabaseConnection connection, String tableName) throws SQLException {
+        Connection con = connection.getConnection();
+        if (!con.getAutoCommit()) {
+            con.commit();
+            LOGGER.log(Level.FINE, "Commit the direct-path insert batch of the table {0}", tableName);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.operation;
+
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.Column;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.ITableMetaData;
+
+/**
+ * The Oracle merge operation. The rows are executed in the JDBC batches by the
+ * {@code MERGE INTO ... USING (SELECT ... FROM dual)} statement joined on the
+ * primary key. The matched row is updated, the new row is inserted. The
+ * table with only the primary key columns is merged without the update
+ * clause.
+ *
+ * @author Andrej_Petras
+ */
+public class OracleMergeOperation extends BatchInsertOperation {
+
+    /**
+     * The alias of the target table.
+     */
+    private static final String TARGET = "t";
+
+    /**
+     * The alias of the source row.
+     */
+    private static final String SOURCE = "s";
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    protected String createSql(IDatabaseConnection connection, ITableMetaData metaData, Column[] columns) throws DataSetException {
+        int[] keys = getKeyIndexes(metaData, columns);
+        int[] values = getValueIndexes(columns, keys);
+        String[] names = new String[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            names[i] = getQualifiedName(null, columns[i].getColumnName(), connection);
+        }
+
+        StringBuilder sql = new StringBuilder();
+        sql.append("merge into ").append(getQualifiedName(connection.getSchema(), metaData.getTableName(), connection))
+                .append(' ').append(TARGET).append(" using (select ");
+        for (int i = 0; i < names.length; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append("? ").append(names[i]);
+        }
+        sql.append(" from dual) ").append(SOURCE).append(" on (");
+        for (int k = 0; k < keys.length; k++) {
+            if (k > 0) {
+                sql.append(" and ");
+            }
+            sql.append(TARGET).append('.').append(names[keys[k]]).append(" = ").append(SOURCE).append('.').append(names[keys[k]]);
+        }
+        sql.append(')');
+        if (values.length > 0) {
+            sql.append(" when matched then update set ");
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    sql.append(", ");
+                }
+                sql.append(TARGET).append('.').append(names[values[i]]).append(" = ").append(SOURCE).append('.').append(names[values[i]]);
+            }
+        }
+        sql.append(" when not matched then insert (");
+        StringBuilder insert = new StringBuilder();
+        for (int i = 0; i < names.length; i++) {
+            if (i > 0) {
+                sql.append(", ");
+                insert.append(", ");
+            }
+            sql.append(names[i]);
+            insert.append(SOURCE).append('.').append(names[i]);
+        }
+        sql.append(") values (").append(insert).append(')');
+        return sql.toString();
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import org.dbunit.DatabaseUnitException;
+import org.dbunit.database.DatabaseConfig;
+import org.dbunit.database.DatabaseConnection;
+import org.dbunit.database.DatabaseDataSet;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.DefaultTableMetaData;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITableMetaData;
+
+/**
+ * The database connection with the cached table meta data. The table meta
+ * data are stored in the {@link DatabaseMetaDataCache} and reused by all
+ * connections of the same datasource.
+ *
+ * @author Andrej_Petras
+ */
+public class CachedDatabaseConnection extends DatabaseConnection {
+
+    /**
+     * The datasource key.
+     */
+    private final String key;
+
+    /**
+     * The database data set.
+     */
+    private IDataSet dataSet;
+
+    /**
+     * The default constructor.
+     *
+     * @param connection the JDBC connection.
+     * @param key the datasource key.
+     * @throws DatabaseUnitException if the method fails.
+     */
+    public CachedDatabaseConnection(Connection connection, String key) throws DatabaseUnitException {
+        super(connection);
+        this.key = key;
+    }
+
+    /**
+     * Gets the datasource key.
+     *
+     * @return the datasource key.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public IDataSet createDataSet() throws SQLException {
+        if (dataSet == null) {
+            dataSet = new CachedDatabaseDataSet(this);
+        }
+        return dataSet;
+    }
+
+    /**
+     * The database data set with the cached table meta data.
+     */
+    private static class CachedDatabaseDataSet extends DatabaseDataSet {
+
+        /**
+         * The database connection.
+         */
+        private final CachedDatabaseConnection connection;
+
+        /**
+         * The case sensitive table names flag.
+         */
+        private final boolean caseSensitive;
+
+        /**
+         * The default constructor.
+         *
+         * @param connection the database connection.
+         * @throws SQLException if the method fails.
+         */
+        CachedDatabaseDataSet(CachedDatabaseConnection connection) throws SQLException {
+            this(connection, Boolean.TRUE.equals(connection.getConfig().getProperty(DatabaseConfig.FEATURE_CASE_SENSITIVE_TABLE_NAMES)));
+        }
+
+        /**
+         * Creates the data set with the case sensitivity of the table names.
+         *
+         * @param connection the database connection.
+         * @param caseSensitive the case sensitive table names flag.
+         * @throws SQLException if the method fails.
+         */
+        private CachedDatabaseDataSet(CachedDatabaseConnection connection, boolean caseSensitive) throws SQLException {
+            super(connection, caseSensitive);
+            this.connection = connection;
+            this.caseSensitive = caseSensitive;
+        }
+
+        /**
+         * {@inheritDoc }
+         */
+        @Override
+        public ITableMetaData getTableMetaData(String tableName) throws DataSetException {
+            try {
+                return DatabaseMetaDataCache.getTableMetaData(connection.getKey(), tableName, caseSensitive, () -> {
+                    ITableMetaData metaData = super.getTableMetaData(tableName);
+                    return new DefaultTableMetaData(metaData.getTableName(), metaData.getColumns(), metaData.getPrimaryKeys());
+                });
+            } catch (DataSetException ex) {
+                throw ex;
+            } catch (Exception ex) {
+                throw new DataSetException(ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The checksum manifest of the datasource directory. The manifest contains the
+ * SHA-256 hash, the size and the last modified time of each data file. The
+ * manifest is stored in the {@value #MANIFEST_FILE_NAME} file next to the
+ * harvester properties.
+ *
+ * @author Andrej_Petras
+ */
+public class ChecksumManifest {
+
+    /**
+     * The logger for this class.
+     */
+    private static final Logger LOGGER = Logger.getLogger(ChecksumManifest.class.getName());
+
+    /**
+     * The manifest file name.
+     */
+    public static final String MANIFEST_FILE_NAME = "harvester.manifest";
+
+    /**
+     * The hash algorithm.
+     */
+    private static final String ALGORITHM = "SHA-256";
+
+    /**
+     * The value separator.
+     */
+    private static final String SEPARATOR = ";";
+
+    /**
+     * The manifest entries by the file name.
+     */
+    private final Properties entries = new Properties();
+
+    /**
+     * Loads the manifest from the directory.
+     *
+     * @param directory the datasource directory.
+     * @return the loaded manifest or the empty manifest if the file does not
+     * exists.
+     * @throws IOException if the method fails.
+     */
+    public static ChecksumManifest load(Path directory) throws IOException {
+        ChecksumManifest result = new ChecksumManifest();
+        Path file = directory.resolve(MANIFEST_FILE_NAME);
+        if (Files.exists(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                result.entries.load(in);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates the manifest for the data files. The hash of the file is reused
+     * from the previous manifest if the size and the last modified time of the
+     * file is not changed.
+     *
+     * @param files the data files.
+     * @param previous the previous manifest.
+     * @return the manifest for the data files.
+     * @throws IOException if the method fails.
+     */
+    public static ChecksumManifest create(Collection<Path> files, ChecksumManifest previous) throws IOException {
+        ChecksumManifest result = new ChecksumManifest();
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            long size = Files.size(file);
+            long modified = Files.getLastModifiedTime(file).toMillis();
+
+            String[] old = previous.getEntry(name);
+            String hash;
+            if (old != null && Long.toString(size).equals(old[1]) && Long.toString(modified).equals(old[2])) {
+                hash = old[0];
+            } else {
+                LOGGER.log(Level.FINE, "Compute the checksum of the file {0}", file);
+                hash = hash(file);
+            }
+            result.entries.setProperty(name, hash + SEPARATOR + size + SEPARATOR + modified);
+        }
+        return result;
+    }
+
+    /**
+     * Returns {@code true} if the content of the file is changed against the
+     * other manifest.
+     *
+     * @param file the file name.
+     * @param other the other manifest.
+     * @return {@code true} if the content of the file is changed.
+     */
+    public boolean isChanged(String file, ChecksumManifest other) {
+        String[] entry = getEntry(file);
+        String[] otherEntry = other.getEntry(file);
+        if (entry == null || otherEntry == null) {
+            return true;
+        }
+        return !Objects.equals(entry[0], otherEntry[0]) || !Objects.equals(entry[1], otherEntry[1]);
+    }
+
+    /**
+     * Stores the manifest to the directory.
+     *
+     * @param directory the datasource directory.
+     * @throws IOException if the method fails.
+     */
+    public void store(Path directory) throws IOException {
+        try (OutputStream out = Files.newOutputStream(directory.resolve(MANIFEST_FILE_NAME))) {
+            entries.store(out, "Harvester checksum manifest");
+        }
+    }
+
+    /**
+     * Gets the manifest entry of the file.
+     *
+     * @param file the file name.
+     * @return the hash, size and modified time of the file or {@code null}.
+     */
+    private String[] getEntry(String file) {
+        String value = entries.getProperty(file);
+        if (value == null) {
+            return null;
+        }
+        String[] result = value.split(SEPARATOR);
+        if (result.length != 3) {
+            return null;
+        }
+        return result;
+    }
+
+    /**
+     * Computes the hash of the file.
+     *
+     * @param file the file.
+     * @return the hexadecimal hash of the file.
+     * @throws IOException if the method fails.
+     */
+    private static String hash(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IOException("Missing the hash algorithm " + ALGORITHM, ex);
+        }
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file)) {
+            int count = in.read(buffer);
+            while (count >= 0) {
+                digest.update(buffer, 0, count);
+                count = in.read(buffer);
+            }
+        }
+        return String.format("%064x", new BigInteger(1, digest.digest()));
+    }
+}
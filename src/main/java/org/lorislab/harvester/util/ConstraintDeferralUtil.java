@@ -0,0 +1,168 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.lorislab.harvester.operation.ConstraintDeferral;
+
+/**
+ * The constraint deferral utility. The restore statements are stored in the
+ * {@value #RESTORE_FILE_NAME} file of the datasource directory before the
+ * constraints are deferred. The file is removed after all statements are
+ * successfully executed, otherwise the failed statements stay in the file
+ * and they are executed again by the next run.
+ *
+ * @author Andrej_Petras
+ */
+public final class ConstraintDeferralUtil {
+
+    /**
+     * The logger for this class.
+     */
+    private static final Logger LOGGER = Logger.getLogger(ConstraintDeferralUtil.class.getName());
+
+    /**
+     * The restore file name.
+     */
+    public static final String RESTORE_FILE_NAME = "harvester.restore.sql";
+
+    /**
+     * The default constructor.
+     */
+    private ConstraintDeferralUtil() {
+        // empty constructor.
+    }
+
+    /**
+     * Executes the action with the deferred constraints and indexes of the
+     * tables. The constraints and indexes are restored even if the action
+     * fails.
+     *
+     * @param connection the connection.
+     * @param deferral the constraint deferral of the database.
+     * @param schema the schema or {@code null} for the current schema.
+     * @param directory the datasource directory.
+     * @param tables the table names.
+     * @param action the action.
+     * @throws Exception if the method fails.
+     */
+    public static void execute(Connection connection, ConstraintDeferral deferral, String schema, Path directory, List<String> tables, Action action) throws Exception {
+        List<String> defer = new ArrayList<>();
+        List<String> restore = new ArrayList<>();
+        deferral.collect(connection, schema, tables, defer, restore);
+
+        // the failed restore statements of the previous run
+        Path file = directory.resolve(RESTORE_FILE_NAME);
+        List<String> statements = new ArrayList<>();
+        if (Files.exists(file)) {
+            statements.addAll(Files.readAllLines(file, StandardCharsets.UTF_8));
+            LOGGER.log(Level.WARNING, "Pending restore statements of the previous run: {0}", statements);
+        }
+
+        LOGGER.log(Level.INFO, "Defer constraints and indexes: {0}", defer.size());
+        try {
+            try (Statement statement = connection.createStatement()) {
+                for (int i = 0; i < defer.size(); i++) {
+                    // the restore statements are executed in the reverse order
+                    statements.add(0, restore.get(i));
+                    Files.write(file, statements, StandardCharsets.UTF_8);
+                    try {
+                        LOGGER.log(Level.FINE, "Defer: {0}", defer.get(i));
+                        statement.execute(defer.get(i));
+                    } catch (SQLException ex) {
+                        statements.remove(0);
+                        Files.write(file, statements, StandardCharsets.UTF_8);
+                        throw ex;
+                    }
+                }
+            }
+            action.execute();
+        } catch (Exception ex) {
+            try {
+                restore(connection, file, statements);
+            } catch (SQLException re) {
+                ex.addSuppressed(re);
+            }
+            throw ex;
+        }
+        restore(connection, file, statements);
+    }
+
+    /**
+     * Executes the restore statements. The failed statements are stored in
+     * the restore file.
+     *
+     * @param connection the connection.
+     * @param file the restore file.
+     * @param statements the restore statements.
+     * @throws SQLException if the method fails.
+     */
+    private static void restore(Connection connection, Path file, List<String> statements) throws SQLException {
+        LOGGER.log(Level.INFO, "Restore constraints and indexes: {0}", statements.size());
+        List<String> failed = new ArrayList<>();
+        SQLException error = null;
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : statements) {
+                try {
+                    LOGGER.log(Level.FINE, "Restore: {0}", sql);
+                    statement.execute(sql);
+                } catch (SQLException ex) {
+                    LOGGER.log(Level.SEVERE, "Error restore statement: {0} error: {1}", new Object[]{sql, ex.getMessage()});
+                    failed.add(sql);
+                    if (error == null) {
+                        error = ex;
+                    }
+                }
+            }
+        }
+        try {
+            if (failed.isEmpty()) {
+                Files.deleteIfExists(file);
+            } else {
+                Files.write(file, failed, StandardCharsets.UTF_8);
+            }
+        } catch (IOException ex) {
+            LOGGER.log(Level.SEVERE, "Error update the restore file " + file, ex);
+        }
+        if (error != null) {
+            throw new SQLException("Error restore " + failed.size() + " constraints or indexes, the statements are stored in the file " + file, error);
+        }
+    }
+
+    /**
+     * The action executed with the deferred constraints.
+     */
+    @FunctionalInterface
+    public interface Action {
+
+        /**
+         * Executes the action.
+         *
+         * @throws Exception if the method fails.
+         */
+        void execute() throws Exception;
+    }
+}
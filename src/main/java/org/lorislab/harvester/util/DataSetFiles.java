@@ -0,0 +1,113 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.csv.CsvDataSet;
+import org.lorislab.harvester.dataset.StreamingCsvDataSet;
+import org.lorislab.harvester.dataset.StreamingDataSet;
+import org.lorislab.harvester.dataset.XlsxStreamingDataSet;
+
+/**
+ * The data files of the datasource directory. The directory with the XLSX
+ * workbooks and without any CSV file is the XLSX data set, every sheet is
+ * the table and the tables are ordered by the table ordering file or by the
+ * workbook and sheet order. The other directories are the CSV data sets with
+ * the table ordering file, the workbooks in the CSV data set are ignored.
+ *
+ * @author Andrej_Petras
+ */
+public final class DataSetFiles {
+
+    /**
+     * The default constructor.
+     */
+    private DataSetFiles() {
+        // empty constructor.
+    }
+
+    /**
+     * Returns {@code true} if the datasource directory is the XLSX data set.
+     * The directory has to contain the workbook and no CSV file.
+     *
+     * @param path the datasource directory.
+     * @return {@code true} if the datasource directory is the XLSX data set.
+     * @throws IOException if the method fails.
+     */
+    public static boolean isXlsx(Path path) throws IOException {
+        return XlsxStreamingDataSet.hasWorkbooks(path) && !StreamingCsvDataSet.hasCsvFiles(path);
+    }
+
+    /**
+     * Reads the ordered table names of the datasource directory.
+     *
+     * @param path the datasource directory.
+     * @return the ordered table names.
+     * @throws IOException if the method fails.
+     * @throws DataSetException if the method fails.
+     */
+    public static List<String> readTables(Path path) throws IOException, DataSetException {
+        if (isXlsx(path) && !Files.exists(path.resolve(CsvDataSet.TABLE_ORDERING_FILE))) {
+            return new ArrayList<>(XlsxStreamingDataSet.readSheets(path).keySet());
+        }
+        return StreamingCsvDataSet.readTableOrdering(path);
+    }
+
+    /**
+     * Gets the data files of the tables. The tables of the XLSX data set
+     * share the workbook file.
+     *
+     * @param path the datasource directory.
+     * @param tables the table names.
+     * @return the data file by the table name in the table order.
+     * @throws IOException if the method fails.
+     * @throws DataSetException if the method fails.
+     */
+    public static Map<String, Path> getTableFiles(Path path, List<String> tables) throws IOException, DataSetException {
+        Map<String, Path> result = new LinkedHashMap<>();
+        if (isXlsx(path)) {
+            try (XlsxStreamingDataSet dataSet = new XlsxStreamingDataSet(path, tables)) {
+                tables.forEach(table -> result.put(table, dataSet.getTableFile(table)));
+            }
+        } else {
+            tables.forEach(table -> result.put(table, StreamingCsvDataSet.getTableFile(path, table)));
+        }
+        return result;
+    }
+
+    /**
+     * Opens the streaming data set of the data files.
+     *
+     * @param path the datasource directory.
+     * @param tables the ordered table names.
+     * @return the streaming data set.
+     * @throws IOException if the method fails.
+     * @throws DataSetException if the method fails.
+     */
+    public static StreamingDataSet open(Path path, List<String> tables) throws IOException, DataSetException {
+        if (isXlsx(path)) {
+            return new XlsxStreamingDataSet(path, tables);
+        }
+        return new StreamingCsvDataSet(path, tables);
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.util;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.IDataSet;
+import org.dbunit.dataset.ITable;
+import org.dbunit.dataset.ITableIterator;
+import org.lorislab.harvester.dataset.SnapshotDataSet;
+import org.lorislab.harvester.dataset.SnapshotTable;
+import org.lorislab.harvester.dataset.SnapshotWriter;
+import org.lorislab.harvester.dataset.StreamingDataSet;
+
+/**
+ * The data set snapshot utility. The compiled snapshot of the datasource
+ * directory is stored in the {@value #SNAPSHOT_DIRECTORY} directory together
+ * with the checksum manifest of the source data files. The snapshot of the
+ * table is used only if the source data file is not changed since the
+ * compilation and the snapshot matches the column data types of the target
+ * table and the default time zone.
+ *
+ * @author Andrej_Petras
+ */
+public final class DataSetSnapshot {
+
+    /**
+     * The logger for this class.
+     */
+    private static final Logger LOGGER = Logger.getLogger(DataSetSnapshot.class.getName());
+
+    /**
+     * The snapshot directory name.
+     */
+    public static final String SNAPSHOT_DIRECTORY = ".snapshot";
+
+    /**
+     * The default constructor.
+     */
+    private DataSetSnapshot() {
+        // empty constructor.
+    }
+
+    /**
+     * Compiles the data files of the tables to the snapshot. The values are
+     * converted to the data types of the database tables.
+     *
+     * @param connection the database connection.
+     * @param path the datasource directory.
+     * @param tables the ordered table names.
+     * @throws Exception if the method fails.
+     */
+    public static void compile(IDatabaseConnection connection, Path path, List<String> tables) throws Exception {
+        Path directory = getDirectory(path);
+        Files.createDirectories(directory);
+
+        // the snapshot without the manifest is not valid
+        ChecksumManifest previous = ChecksumManifest.load(directory);
+        Files.deleteIfExists(directory.resolve(ChecksumManifest.MANIFEST_FILE_NAME));
+        ChecksumManifest manifest = ChecksumManifest.create(getFiles(path, tables), previous);
+
+        IDataSet database = connection.createDataSet();
+        try (StreamingDataSet dataSet = DataSetFiles.open(path, tables)) {
+            ITableIterator iterator = dataSet.iterator();
+            while (iterator.next()) {
+                ITable table = iterator.getTable();
+                String name = table.getTableMetaData().getTableName();
+                int rows = SnapshotWriter.write(table, database.getTableMetaData(name), SnapshotDataSet.getTableFile(directory, name));
+                LOGGER.log(Level.INFO, "Compiled the table {0} rows: {1}", new Object[]{name, rows});
+            }
+        }
+        manifest.store(directory);
+    }
+
+    /**
+     * Returns {@code true} if the snapshot of the tables is valid.
+     *
+     * @param database the database data set.
+     * @param path the datasource directory.
+     * @param tables the table names.
+     * @return {@code true} if the snapshot of the tables is valid.
+     * @throws Exception if the method fails.
+     */
+    public static boolean isValid(IDataSet database, Path path, List<String> tables) throws Exception {
+        Path directory = getDirectory(path);
+        if (!Files.exists(directory.resolve(ChecksumManifest.MANIFEST_FILE_NAME))) {
+            return false;
+        }
+        ChecksumManifest manifest = ChecksumManifest.load(directory);
+        Map<String, Path> files = DataSetFiles.getTableFiles(path, tables);
+        ChecksumManifest current = ChecksumManifest.create(new LinkedHashSet<>(files.values()), manifest);
+        for (String table : tables) {
+            Path snapshot = SnapshotDataSet.getTableFile(directory, table);
+            if (!Files.exists(snapshot)) {
+                return false;
+            }
+            String file = files.get(table).getFileName().toString();
+            if (current.isChanged(file, manifest)) {
+                LOGGER.log(Level.INFO, "The snapshot of the table {0} is out of date.", table);
+                return false;
+            }
+            if (!SnapshotTable.isCompatible(snapshot, database.getTableMetaData(table))) {
+                LOGGER.log(Level.INFO, "The snapshot of the table {0} does not match the database.", table);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Opens the data set of the tables. The snapshot data set is used if the
+     * snapshot is valid, otherwise the data set of the data files.
+     *
+     * @param database the database data set.
+     * @param path the datasource directory.
+     * @param tables the ordered table names.
+     * @return the data set of the tables.
+     * @throws Exception if the method fails.
+     */
+    public static StreamingDataSet open(IDataSet database, Path path, List<String> tables) throws Exception {
+        if (isValid(database, path, tables)) {
+            LOGGER.log(Level.INFO, "Use the snapshot of the directory {0}", path);
+            return new SnapshotDataSet(getDirectory(path), tables);
+        }
+        return DataSetFiles.open(path, tables);
+    }
+
+    /**
+     * Gets the snapshot directory of the datasource directory.
+     *
+     * @param path the datasource directory.
+     * @return the snapshot directory.
+     */
+    public static Path getDirectory(Path path) {
+        return path.resolve(SNAPSHOT_DIRECTORY);
+    }
+
+    /**
+     * Gets the data files of the tables.
+     *
+     * @param path the datasource directory.
+     * @param tables the table names.
+     * @return the data files of the tables.
+     * @throws Exception if the method fails.
+     */
+    private static Set<Path> getFiles(Path path, List<String> tables) throws Exception {
+        return new LinkedHashSet<>(DataSetFiles.getTableFiles(path, tables).values());
+    }
+}
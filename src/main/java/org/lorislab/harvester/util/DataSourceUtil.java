@@ -16,7 +16,13 @@
 package org.lorislab.harvester.util;
 
 import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import javax.naming.InitialContext;
+import javax.naming.NamingException;
 import javax.sql.DataSource;
 
 /**
@@ -26,6 +32,21 @@ import javax.sql.DataSource;
  */
 public final class DataSourceUtil {
 
+    /**
+     * The logger for this class.
+     */
+    private static final Logger LOGGER = Logger.getLogger(DataSourceUtil.class.getName());
+
+    /**
+     * The resolved data sources by the JNDI.
+     */
+    private static final Map<String, DataSource> DATA_SOURCES = new ConcurrentHashMap<>();
+
+    /**
+     * The initial context.
+     */
+    private static InitialContext initialContext;
+
     /**
      * The default constructor.
      */
@@ -34,7 +55,8 @@ public final class DataSourceUtil {
     }
 
     /**
-     * Gets the connection.
+     * Gets the connection. The cached data source is invalidated if the
+     * connection could not be created.
      *
      * @param jndi the JNDI.
      * @return the corresponding connection.
@@ -42,18 +64,83 @@ public final class DataSourceUtil {
      */
     public static Connection getConnection(String jndi) throws Exception {
         DataSource result = getDataSource(jndi);
-        return result.getConnection();
+        try {
+            return result.getConnection();
+        } catch (SQLException ex) {
+            invalidate(jndi);
+            throw ex;
+        }
     }
 
     /**
-     * Gets the connection.
+     * Gets the data source. The resolved data source is cached by the JNDI.
      *
      * @param jndi the JNDI.
-     * @return the corresponding connection.
+     * @return the corresponding data source.
      * @throws Exception if the method fails.
      */
     public static DataSource getDataSource(String jndi) throws Exception {
-        InitialContext initialContext = new InitialContext();
-        return (DataSource) initialContext.lookup(jndi);
+        if (jndi == null) {
+            throw new NamingException("The JNDI name is not defined");
+        }
+        DataSource result = DATA_SOURCES.get(jndi);
+        if (result == null) {
+            result = lookup(jndi);
+            DATA_SOURCES.put(jndi, result);
+        }
+        return result;
+    }
+
+    /**
+     * Removes the data source from the cache.
+     *
+     * @param jndi the JNDI.
+     */
+    public static void invalidate(String jndi) {
+        if (jndi != null && DATA_SOURCES.remove(jndi) != null) {
+            LOGGER.log(Level.INFO, "Invalidate the data source: {0}", jndi);
+        }
+    }
+
+    /**
+     * Removes all data sources from the cache.
+     */
+    public static void clear() {
+        DATA_SOURCES.clear();
+    }
+
+    /**
+     * Lookups the data source in the initial context. The initial context is
+     * created again after the failed lookup.
+     *
+     * @param jndi the JNDI.
+     * @return the corresponding data source.
+     * @throws NamingException if the method fails.
+     */
+    private static synchronized DataSource lookup(String jndi) throws NamingException {
+        try {
+            if (initialContext == null) {
+                initialContext = new InitialContext();
+            }
+            return (DataSource) initialContext.lookup(jndi);
+        } catch (NamingException | RuntimeException ex) {
+            DATA_SOURCES.remove(jndi);
+            closeContext();
+            throw ex;
+        }
+    }
+
+    /**
+     * Closes the initial context.
+     */
+    private static void closeContext() {
+        if (initialContext != null) {
+            try {
+                initialContext.close();
+            } catch (NamingException ex) {
+                LOGGER.log(Level.FINEST, "Error closing the initial context", ex);
+            }
+            initialContext = null;
+        }
     }
 }
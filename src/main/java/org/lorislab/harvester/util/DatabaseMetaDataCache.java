@@ -0,0 +1,166 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.util;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.dbunit.dataset.ITableMetaData;
+import org.dbunit.dataset.datatype.IDataTypeFactory;
+
+/**
+ * The database meta data cache. The cache keeps the resolved data type
+ * factory and the loaded table meta data for each datasource key (the JNDI).
+ *
+ * @author Andrej_Petras
+ */
+public final class DatabaseMetaDataCache {
+
+    /**
+     * The logger for this class.
+     */
+    private static final Logger LOGGER = Logger.getLogger(DatabaseMetaDataCache.class.getName());
+
+    /**
+     * The cache entries by the datasource key.
+     */
+    private static final Map<String, Entry> CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * The default constructor.
+     */
+    private DatabaseMetaDataCache() {
+        // empty constructor
+    }
+
+    /**
+     * Gets the data type factory for the datasource.
+     *
+     * @param key the datasource key.
+     * @param loader the data type factory loader.
+     * @return the data type factory or {@code null} for the default data type
+     * factory.
+     * @throws Exception if the method fails.
+     */
+    public static IDataTypeFactory getDataTypeFactory(String key, Loader<IDataTypeFactory> loader) throws Exception {
+        Entry entry = getEntry(key);
+        Optional<IDataTypeFactory> result = entry.factory;
+        if (result == null) {
+            result = Optional.ofNullable(loader.load());
+            entry.factory = result;
+        }
+        return result.orElse(null);
+    }
+
+    /**
+     * Gets the table meta data for the datasource. The table meta data are
+     * stored by the table name reported by the database. The requested table
+     * name is resolved to the reported name with the same case sensitivity as
+     * the database data set.
+     *
+     * @param key the datasource key.
+     * @param tableName the requested table name.
+     * @param caseSensitive the case sensitive table names flag.
+     * @param loader the table meta data loader.
+     * @return the table meta data.
+     * @throws Exception if the method fails.
+     */
+    public static ITableMetaData getTableMetaData(String key, String tableName, boolean caseSensitive, Loader<ITableMetaData> loader) throws Exception {
+        Entry entry = getEntry(key);
+        String alias = caseSensitive ? tableName : tableName.toUpperCase();
+        String name = entry.names.get(alias);
+        ITableMetaData result = name == null ? null : entry.tables.get(name);
+        if (result == null) {
+            result = loader.load();
+            name = result.getTableName();
+            ITableMetaData tmp = entry.tables.putIfAbsent(name, result);
+            if (tmp != null) {
+                result = tmp;
+            }
+            entry.names.put(alias, name);
+        }
+        return result;
+    }
+
+    /**
+     * Removes the cached meta data of the datasource.
+     *
+     * @param key the datasource key.
+     */
+    public static void invalidate(String key) {
+        if (key != null && CACHE.remove(key) != null) {
+            LOGGER.log(Level.INFO, "Invalidate the database meta data: {0}", key);
+        }
+    }
+
+    /**
+     * Removes all cached meta data.
+     */
+    public static void clear() {
+        LOGGER.info("Clear the database meta data cache");
+        CACHE.clear();
+    }
+
+    /**
+     * Gets the cache entry.
+     *
+     * @param key the datasource key.
+     * @return the cache entry.
+     */
+    private static Entry getEntry(String key) {
+        return CACHE.computeIfAbsent(key, k -> new Entry());
+    }
+
+    /**
+     * The cache entry.
+     */
+    private static class Entry {
+
+        /**
+         * The resolved data type factory.
+         */
+        private volatile Optional<IDataTypeFactory> factory;
+
+        /**
+         * The table meta data by the table name reported by the database.
+         */
+        private final Map<String, ITableMetaData> tables = new ConcurrentHashMap<>();
+
+        /**
+         * The reported table names by the requested table name.
+         */
+        private final Map<String, String> names = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * The cache value loader.
+     *
+     * @param <T> the value type.
+     */
+    @FunctionalInterface
+    public interface Loader<T> {
+
+        /**
+         * Loads the value.
+         *
+         * @return the loaded value.
+         * @throws Exception if the method fails.
+         */
+        T load() throws Exception;
+    }
+}
@@ -20,22 +20,45 @@ import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.sql.DataSource;
 import org.dbunit.database.DatabaseConfig;
 import org.dbunit.database.DatabaseConnection;
 import org.dbunit.database.IDatabaseConnection;
 import org.dbunit.dataset.IDataSet;
-import org.dbunit.dataset.csv.CsvDataSet;
 import org.dbunit.dataset.datatype.IDataTypeFactory;
 import org.dbunit.dataset.excel.XlsDataSet;
 import org.dbunit.ext.h2.H2DataTypeFactory;
 import org.dbunit.ext.oracle.Oracle10DataTypeFactory;
+import org.lorislab.harvester.dataset.CommitIntervalDataSet;
+import org.lorislab.harvester.dataset.StreamingDataSet;
+import org.lorislab.harvester.dataset.TableMetrics;
+import org.lorislab.harvester.operation.BatchDeleteOperation;
+import org.lorislab.harvester.operation.BatchInsertOperation;
+import org.lorislab.harvester.operation.BulkLoadOperation;
+import org.lorislab.harvester.operation.ConstraintDeferral;
+import org.lorislab.harvester.operation.DatabaseSnapshot;
+import org.lorislab.harvester.operation.DiffRefreshOperation;
+import org.lorislab.harvester.operation.H2ConstraintDeferral;
+import org.lorislab.harvester.operation.H2DatabaseSnapshot;
+import org.lorislab.harvester.operation.MergeOperation;
+import org.lorislab.harvester.operation.OracleConstraintDeferral;
+import org.lorislab.harvester.operation.OracleDatabaseSnapshot;
 
 import org.dbunit.operation.DatabaseOperation;
 
@@ -72,6 +95,47 @@ public final class DbUnitExecutorUtil {
         LOGGER.log(Level.INFO, "H2 driver install.");
     }
 
+    /**
+     * The constraint deferral.
+     */
+    private static final Map<String, ConstraintDeferral> CONSTRAINT_DEFERRAL = new HashMap<>();
+
+    /**
+     * The constraint deferral static block.
+     */
+    static {
+        CONSTRAINT_DEFERRAL.put("Oracle", new OracleConstraintDeferral());
+        CONSTRAINT_DEFERRAL.put("H2", new H2ConstraintDeferral());
+    }
+
+    /**
+     * The database snapshot.
+     */
+    private static final Map<String, DatabaseSnapshot> DATABASE_SNAPSHOT = new HashMap<>();
+
+    /**
+     * The database snapshot static block.
+     */
+    static {
+        DATABASE_SNAPSHOT.put("Oracle", new OracleDatabaseSnapshot());
+        DATABASE_SNAPSHOT.put("H2", new H2DatabaseSnapshot());
+    }
+
+    /**
+     * The clean insert operation.
+     */
+    private static final String CLEAN_INSERT = "cleanInsert";
+
+    /**
+     * The bulk load operation.
+     */
+    private static final String BULK = "bulk";
+
+    /**
+     * The diff refresh operation.
+     */
+    private static final String DIFF_REFRESH = "diffRefresh";
+
     /**
      * The operation.
      */
@@ -83,13 +147,53 @@ public final class DbUnitExecutorUtil {
     static {
         OPERATION.put("insert", DatabaseOperation.INSERT);
         OPERATION.put("refresh", DatabaseOperation.REFRESH);
-        OPERATION.put("cleanInsert", DatabaseOperation.CLEAN_INSERT);
-        OPERATION.put("delete", DatabaseOperation.DELETE);
+        OPERATION.put(CLEAN_INSERT, DatabaseOperation.CLEAN_INSERT);
+        OPERATION.put("delete", new BatchDeleteOperation());
         OPERATION.put("deleteAll", DatabaseOperation.DELETE_ALL);
         OPERATION.put("runcateTable", DatabaseOperation.TRUNCATE_TABLE);
         OPERATION.put("update", DatabaseOperation.UPDATE);
+        OPERATION.put("fastInsert", new BatchInsertOperation());
+        OPERATION.put(BULK, new BulkLoadOperation());
+        OPERATION.put(DIFF_REFRESH, new DiffRefreshOperation());
+        OPERATION.put("merge", new MergeOperation());
     }
 
+    /**
+     * The incremental operation.
+     */
+    public static final String INCREMENTAL = "incremental";
+
+    /**
+     * The compile operation.
+     */
+    public static final String COMPILE = "compile";
+
+    /**
+     * The database snapshot operation.
+     */
+    public static final String SNAPSHOT = "snapshot";
+
+    /**
+     * The restore of the database snapshot operation.
+     */
+    public static final String RESTORE = "restore";
+
+    /**
+     * The copy of the incremental manifest in the snapshot directory.
+     */
+    private static final String SNAPSHOT_MANIFEST_FILE_NAME = "database." + ChecksumManifest.MANIFEST_FILE_NAME;
+
+    /**
+     * The default operation of the changed tables in the incremental
+     * operation.
+     */
+    private static final String INCREMENTAL_OPERATION_DEFAULT = "refresh";
+
+    /**
+     * The operations which could be executed with the parallel tables.
+     */
+    private static final Set<String> PARALLEL_OPERATION = new HashSet<>(Arrays.asList("insert", "fastInsert", BULK, "refresh", "update", "merge"));
+
     /**
      * The default constructor.
      */
@@ -103,43 +207,318 @@ public final class DbUnitExecutorUtil {
      * @param connection the connection.
      * @param operation the operation.
      * @param path the file path.
+     * @param properties the harvester properties of the directory.
+     * @return the import result.
+     * @throws Exception if the method fails.
+     */
+    public static ImportResult execute(Connection connection, String operation, Path path, Properties properties) throws Exception {
+        List<String> tables = DataSetFiles.readTables(path);
+        if (INCREMENTAL.equals(operation)) {
+            return executeIncremental(connection, path, properties, tables);
+        }
+        if (COMPILE.equals(operation)) {
+            LOGGER.log(Level.INFO, "Compile file: {0}", path.toString());
+            DataSetSnapshot.compile(getIDatabaseConnection(connection, getCacheKey(properties)), path, tables);
+            return new ImportResult();
+        }
+        if (SNAPSHOT.equals(operation) || RESTORE.equals(operation)) {
+            executeDatabaseSnapshot(connection, operation, path, properties, tables);
+            return new ImportResult();
+        }
+        ImportResult result = new ImportResult();
+        result.getTableMetrics().addAll(execute(connection, operation, path, properties, tables));
+        return result;
+    }
+
+    /**
+     * Captures or restores the database snapshot of the tables. The manifest
+     * of the incremental operation is saved with the snapshot and restored
+     * with the tables, so the next incremental run compares the files with
+     * the restored state.
+     *
+     * @param connection the connection.
+     * @param operation the snapshot or restore operation.
+     * @param path the file path.
+     * @param properties the harvester properties of the directory.
+     * @param tables the ordered table names.
+     * @throws Exception if the method fails.
+     */
+    private static void executeDatabaseSnapshot(Connection connection, String operation, Path path, Properties properties, List<String> tables) throws Exception {
+        DatabaseSnapshot snapshot = findByProductName(DATABASE_SNAPSHOT, connection);
+        if (snapshot == null) {
+            throw new Exception("The database snapshot is not supported for the database: " + connection.getMetaData().getDatabaseProductName());
+        }
+        String schema = getIDatabaseConnection(connection, getCacheKey(properties)).getSchema();
+        String name = path.getFileName().toString();
+        Path directory = DataSetSnapshot.getDirectory(path);
+        Path manifest = path.resolve(ChecksumManifest.MANIFEST_FILE_NAME);
+        Path copy = directory.resolve(SNAPSHOT_MANIFEST_FILE_NAME);
+        if (SNAPSHOT.equals(operation)) {
+            LOGGER.log(Level.INFO, "Snapshot of the directory: {0}", path.toString());
+            snapshot.snapshot(connection, schema, tables, name, directory);
+            Files.createDirectories(directory);
+            if (Files.exists(manifest)) {
+                Files.copy(manifest, copy, StandardCopyOption.REPLACE_EXISTING);
+            } else {
+                Files.deleteIfExists(copy);
+            }
+        } else {
+            LOGGER.log(Level.INFO, "Restore the snapshot of the directory: {0}", path.toString());
+            snapshot.restore(connection, schema, tables, name, directory);
+            if (Files.exists(copy)) {
+                Files.copy(copy, manifest, StandardCopyOption.REPLACE_EXISTING);
+            } else {
+                Files.deleteIfExists(manifest);
+            }
+        }
+        if (!connection.getAutoCommit()) {
+            connection.commit();
+        }
+    }
+
+    /**
+     * Executes the incremental operation. Only the tables with the changed
+     * files since the last successful incremental run are executed.
+     *
+     * @param connection the connection.
+     * @param path the file path.
+     * @param properties the harvester properties of the directory.
+     * @param tables the ordered table names.
+     * @return the import result with the skipped tables.
+     * @throws Exception if the method fails.
      */
-    public static void execute(Connection connection, String operation, Path path) throws Exception {
+    private static ImportResult executeIncremental(Connection connection, Path path, Properties properties, List<String> tables) throws Exception {
+        ImportResult result = new ImportResult();
+
+        Map<String, Path> files = DataSetFiles.getTableFiles(path, tables);
+        ChecksumManifest previous = ChecksumManifest.load(path);
+        ChecksumManifest current = ChecksumManifest.create(new LinkedHashSet<>(files.values()), previous);
+
+        List<String> changed = new ArrayList<>();
+        for (String table : tables) {
+            String file = files.get(table).getFileName().toString();
+            if (current.isChanged(file, previous)) {
+                changed.add(table);
+            } else {
+                result.getSkippedTables().add(table);
+            }
+        }
+        LOGGER.log(Level.INFO, "Incremental changed tables: {0} skipped tables: {1}", new Object[]{changed, result.getSkippedTables()});
+
+        if (!changed.isEmpty()) {
+            String operation = properties.getProperty(HarvesterProperties.INCREMENTAL_OPERATION, INCREMENTAL_OPERATION_DEFAULT);
+            result.getTableMetrics().addAll(execute(connection, operation, path, properties, changed));
+        }
+        current.store(path);
+        return result;
+    }
+
+    /**
+     * Executes the operation for the tables in the connection
+     *
+     * @param connection the connection.
+     * @param operation the operation.
+     * @param path the file path.
+     * @param properties the harvester properties of the directory.
+     * @param tables the ordered table names.
+     * @return the metrics of the tables.
+     * @throws Exception if the method fails.
+     */
+    public static List<TableMetrics> execute(Connection connection, String operation, Path path, Properties properties, List<String> tables) throws Exception {
         LOGGER.log(Level.INFO, "Execute file: {0}", path.toString());
 
-        IDatabaseConnection idbConnection = getIDatabaseConnection(connection);
+        IDatabaseConnection idbConnection = getIDatabaseConnection(connection, getCacheKey(properties));
+
+        int batchSize = HarvesterProperties.getInteger(properties, HarvesterProperties.BATCH_SIZE, 0);
+        if (batchSize > 0) {
+            idbConnection.getConfig().setProperty(DatabaseConfig.PROPERTY_BATCH_SIZE, batchSize);
+        }
 
-        IDataSet dataSet = new CsvDataSet(path.toFile());
+        // the native loader commits by itself
+        boolean bulk = BULK.equals(operation);
+        // the diff refresh joins the whole table, a chunk of the rows would delete the rest of the table
+        boolean wholeTables = bulk || DIFF_REFRESH.equals(operation);
+        int commitRows = wholeTables ? 0 : HarvesterProperties.getInteger(properties, HarvesterProperties.COMMIT_ROWS, 0);
+        int commitTables = bulk ? 0 : HarvesterProperties.getInteger(properties, HarvesterProperties.COMMIT_TABLES, 0);
 
         DatabaseOperation dbOperation = OPERATION.get(operation);
         if (dbOperation != null) {
-            dbOperation.execute(idbConnection, dataSet);
+            ConstraintDeferral deferral = null;
+            if (CLEAN_INSERT.equals(operation) && Boolean.parseBoolean(properties.getProperty(HarvesterProperties.DEFER_CONSTRAINTS))) {
+                deferral = findByProductName(CONSTRAINT_DEFERRAL, connection);
+                if (deferral == null) {
+                    LOGGER.log(Level.WARNING, "The constraint deferral is not supported for the database: {0}", connection.getMetaData().getDatabaseProductName());
+                }
+            }
+
+            // the native loader reads the data files
+            try (StreamingDataSet dataSet = bulk ? DataSetFiles.open(path, tables) : DataSetSnapshot.open(idbConnection.createDataSet(), path, tables)) {
+                ImportProgress.register(path.getFileName().toString(), dataSet);
+                try {
+                    if (deferral != null) {
+                        ConstraintDeferralUtil.execute(connection, deferral, idbConnection.getSchema(), path, tables,
+                                () -> executeOperation(connection, idbConnection, dbOperation, dataSet, commitRows, commitTables));
+                    } else {
+                        executeOperation(connection, idbConnection, dbOperation, dataSet, commitRows, commitTables);
+                    }
+                } finally {
+                    ImportProgress.unregister(dataSet);
+                }
+                return dataSet.getMetrics();
+            }
         } else {
             throw new Exception("The operation: " + operation + " is not registred");
         }
     }
 
     /**
-     * Gets ID database connection.
+     * Executes the operation with the data set.
      *
-     * @param connection the database connection.
-     * @return the ID database connection.
+     * @param connection the connection.
+     * @param idbConnection the ID database connection.
+     * @param dbOperation the database operation.
+     * @param dataSet the data set.
+     * @param commitRows the number of the rows per transaction or {@code 0}.
+     * @param commitTables the number of the tables per transaction or
+     * {@code 0}.
+     * @throws Exception if the method fails.
+     */
+    private static void executeOperation(Connection connection, IDatabaseConnection idbConnection, DatabaseOperation dbOperation, IDataSet dataSet, int commitRows, int commitTables) throws Exception {
+        if (commitRows > 0 || commitTables > 0) {
+            executeCommitInterval(connection, idbConnection, dbOperation, new CommitIntervalDataSet(dataSet, connection, commitRows, commitTables));
+        } else {
+            dbOperation.execute(idbConnection, dataSet);
+        }
+    }
+
+    /**
+     * Executes the operation with the commit interval data set. The
+     * uncommitted changes are rolled back if the operation fails and the
+     * exception contains the table and the row range of the last commit.
+     *
+     * @param connection the connection.
+     * @param idbConnection the ID database connection.
+     * @param dbOperation the database operation.
+     * @param dataSet the commit interval data set.
      * @throws Exception if the method fails.
      */
-    private static IDatabaseConnection getIDatabaseConnection(Connection connection) throws Exception {
-        IDatabaseConnection result = new DatabaseConnection(connection);
+    private static void executeCommitInterval(Connection connection, IDatabaseConnection idbConnection, DatabaseOperation dbOperation, CommitIntervalDataSet dataSet) throws Exception {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            dbOperation.execute(idbConnection, dataSet);
+            dataSet.commit();
+            LOGGER.log(Level.INFO, "Commits: {0} last commit: {1}", new Object[]{dataSet.getCommits(), dataSet.getLastCommit()});
+        } catch (Exception ex) {
+            connection.rollback();
+            String lastCommit = dataSet.getLastCommit();
+            throw new Exception("The operation failed after " + dataSet.getCommits() + " commits, the last commit: "
+                    + (lastCommit != null ? lastCommit : "none"), ex);
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
 
-        IDataTypeFactory idf = null;
+    /**
+     * Returns {@code true} if the operation is registered.
+     *
+     * @param operation the operation.
+     * @return {@code true} if the operation is registered.
+     */
+    public static boolean isOperation(String operation) {
+        return OPERATION.containsKey(operation) || INCREMENTAL.equals(operation) || COMPILE.equals(operation)
+                || SNAPSHOT.equals(operation) || RESTORE.equals(operation);
+    }
 
-        DatabaseMetaData metadata = connection.getMetaData();
-        String dbName = metadata.getDatabaseProductName();
+    /**
+     * Returns {@code true} if the tables of the operation could be executed
+     * in parallel in the order of the foreign keys.
+     *
+     * @param operation the operation.
+     * @return {@code true} if the operation supports the parallel tables.
+     */
+    public static boolean isParallelOperation(String operation) {
+        return PARALLEL_OPERATION.contains(operation);
+    }
 
-        Iterator<String> iter = TYPE_FACTORY.keySet().iterator();
-        while (idf == null && iter.hasNext()) {
-            String key = iter.next();
-            if (dbName.contains(key)) {
-                idf = TYPE_FACTORY.get(key);
+    /**
+     * Executes the operation with the parallel tables. Each table is executed
+     * and committed in its own connection of the data source after all of
+     * its parent tables are committed.
+     *
+     * @param dataSource the data source.
+     * @param executor the executor service.
+     * @param parallelism the maximum number of the parallel tables.
+     * @param operation the operation.
+     * @param path the file path.
+     * @param properties the harvester properties of the directory.
+     * @return the import result.
+     * @throws Exception if the method fails.
+     */
+    public static ImportResult executeParallel(DataSource dataSource, ExecutorService executor, int parallelism, String operation, Path path, Properties properties) throws Exception {
+        LOGGER.log(Level.INFO, "Execute file: {0} parallel tables: {1}", new Object[]{path.toString(), parallelism});
+        if (!OPERATION.containsKey(operation)) {
+            throw new Exception("The operation: " + operation + " is not registred");
+        }
+
+        List<String> tables = DataSetFiles.readTables(path);
+        Map<String, Set<String>> parents;
+        try (Connection connection = dataSource.getConnection()) {
+            parents = TableDependencyExecutor.readDependencies(getIDatabaseConnection(connection, getCacheKey(properties)), tables);
+        }
+
+        ImportResult result = new ImportResult();
+        TableDependencyExecutor tableExecutor = new TableDependencyExecutor(tables, parents, (List<String> items) -> {
+            try (Connection connection = dataSource.getConnection()) {
+                boolean autoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(false);
+                try {
+                    List<TableMetrics> metrics = execute(connection, operation, path, properties, items);
+                    connection.commit();
+                    synchronized (result) {
+                        result.getTableMetrics().addAll(metrics);
+                    }
+                } catch (Exception ex) {
+                    connection.rollback();
+                    throw ex;
+                } finally {
+                    connection.setAutoCommit(autoCommit);
+                }
             }
+        });
+        tableExecutor.execute(executor, parallelism);
+        return result;
+    }
+
+    /**
+     * Gets the key of the database meta data cache. The key is the JNDI in
+     * the container and the JDBC URL in the standalone runner.
+     *
+     * @param properties the harvester properties of the directory.
+     * @return the key of the database meta data cache or {@code null}.
+     */
+    private static String getCacheKey(Properties properties) {
+        return properties.getProperty(HarvesterProperties.JNDI, properties.getProperty(HarvesterProperties.URL));
+    }
+
+    /**
+     * Gets ID database connection. The connection with the datasource key
+     * uses the cached data type factory and table meta data.
+     *
+     * @param connection the database connection.
+     * @param key the datasource key or {@code null}.
+     * @return the ID database connection.
+     * @throws Exception if the method fails.
+     */
+    private static IDatabaseConnection getIDatabaseConnection(Connection connection, String key) throws Exception {
+        IDatabaseConnection result;
+        IDataTypeFactory idf;
+        if (key != null) {
+            result = new CachedDatabaseConnection(connection, key);
+            idf = DatabaseMetaDataCache.getDataTypeFactory(key, () -> findDataTypeFactory(connection));
+        } else {
+            result = new DatabaseConnection(connection);
+            idf = findDataTypeFactory(connection);
         }
 
         if (idf != null) {
@@ -152,4 +531,41 @@ public final class DbUnitExecutorUtil {
         return result;
     }
 
+    /**
+     * Finds the data type factory for the database.
+     *
+     * @param connection the database connection.
+     * @return the data type factory or {@code null} for the default data type
+     * factory.
+     * @throws Exception if the method fails.
+     */
+    private static IDataTypeFactory findDataTypeFactory(Connection connection) throws Exception {
+        return findByProductName(TYPE_FACTORY, connection);
+    }
+
+    /**
+     * Finds the value for the database product name.
+     *
+     * @param <T> the value type.
+     * @param values the values by the part of the database product name.
+     * @param connection the database connection.
+     * @return the value for the database or {@code null}.
+     * @throws Exception if the method fails.
+     */
+    private static <T> T findByProductName(Map<String, T> values, Connection connection) throws Exception {
+        T result = null;
+
+        DatabaseMetaData metadata = connection.getMetaData();
+        String dbName = metadata.getDatabaseProductName();
+
+        Iterator<String> iter = values.keySet().iterator();
+        while (result == null && iter.hasNext()) {
+            String key = iter.next();
+            if (dbName.contains(key)) {
+                result = values.get(key);
+            }
+        }
+        return result;
+    }
+
 }
@@ -35,6 +35,64 @@ public final class HarvesterProperties {
      */
     private static final Logger LOGGER = Logger.getLogger(HarvesterProperties.class.getName());
 
+    /**
+     * The JNDI property in the harvester properties.
+     */
+    public static final String JNDI = "jndi";
+
+    /**
+     * The JDBC URL property in the harvester properties for the standalone
+     * runner.
+     */
+    public static final String URL = "url";
+
+    /**
+     * The database user property in the harvester properties for the
+     * standalone runner.
+     */
+    public static final String USER = "user";
+
+    /**
+     * The database password property in the harvester properties for the
+     * standalone runner.
+     */
+    public static final String PASSWORD = "password";
+
+    /**
+     * The JDBC batch size property in the harvester properties.
+     */
+    public static final String BATCH_SIZE = "batchSize";
+
+    /**
+     * The number of the parallel tables property in the harvester properties.
+     */
+    public static final String TABLE_PARALLELISM = "tableParallelism";
+
+    /**
+     * The operation of the changed tables in the incremental operation. The
+     * default refresh operation does not delete the rows removed from the
+     * file, the diff refresh operation deletes them.
+     */
+    public static final String INCREMENTAL_OPERATION = "incremental.operation";
+
+    /**
+     * The number of the rows per transaction property in the harvester
+     * properties.
+     */
+    public static final String COMMIT_ROWS = "commit.rows";
+
+    /**
+     * The number of the tables per transaction property in the harvester
+     * properties.
+     */
+    public static final String COMMIT_TABLES = "commit.tables";
+
+    /**
+     * The constraint and index deferral of the clean insert operation
+     * property in the harvester properties.
+     */
+    public static final String DEFER_CONSTRAINTS = "cleanInsert.deferConstraints";
+
     /**
      * The root directory property name.
      */
@@ -45,6 +103,16 @@ public final class HarvesterProperties {
      */
     private static final String DIRECTORY_PROPERTY_DEFAULT = "harvester";
 
+    /**
+     * The parallelism property name.
+     */
+    private static final String PARALLELISM_PROPERTY_NAME = "org.lorislab.harvester.parallelism";
+
+    /**
+     * The parallelism property default value.
+     */
+    private static final int PARALLELISM_PROPERTY_DEFAULT = 1;
+
     /**
      * The harvester properties.
      */
@@ -66,6 +134,32 @@ public final class HarvesterProperties {
         return System.getProperty(DIRECTORY_PROPERTY_NAME, DIRECTORY_PROPERTY_DEFAULT);
     }
 
+    /**
+     * Gets the number of the datasource directories imported in parallel.
+     *
+     * @return the parallelism. The value {@code 1} means serial import.
+     */
+    public static int getParallelism() {
+        return Math.max(1, Integer.getInteger(PARALLELISM_PROPERTY_NAME, PARALLELISM_PROPERTY_DEFAULT));
+    }
+
+    /**
+     * Gets the integer value of the harvester property.
+     *
+     * @param properties the harvester properties.
+     * @param name the property name.
+     * @param defaultValue the default value.
+     * @return the integer value of the property or the default value if the
+     * property is not defined.
+     */
+    public static int getInteger(Properties properties, String name, int defaultValue) {
+        String value = properties.getProperty(name);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        return Integer.parseInt(value.trim());
+    }
+
     /**
      * Gets the harvester properties.
      *
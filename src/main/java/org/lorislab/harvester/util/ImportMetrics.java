@@ -0,0 +1,254 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.util;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import org.lorislab.harvester.dataset.TableMetrics;
+
+/**
+ * The import metrics registry. The registry keeps the rolling histograms of
+ * the duration and the throughput and the totals of the rows and bytes per
+ * datasource directory and table. The metrics are exported in the Prometheus
+ * text format.
+ *
+ * @author Andrej_Petras
+ */
+public final class ImportMetrics {
+
+    /**
+     * The number of the samples in the histogram window.
+     */
+    private static final int WINDOW = 256;
+
+    /**
+     * The exported quantiles.
+     */
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+    /**
+     * The metrics by the directory and table.
+     */
+    private static final Map<Key, Entry> METRICS = new ConcurrentHashMap<>();
+
+    /**
+     * The default constructor.
+     */
+    private ImportMetrics() {
+        // empty constructor.
+    }
+
+    /**
+     * Records the table metrics of the import.
+     *
+     * @param directory the datasource directory name.
+     * @param tables the table metrics.
+     */
+    public static void record(String directory, List<TableMetrics> tables) {
+        for (TableMetrics table : tables) {
+            Entry entry = METRICS.computeIfAbsent(new Key(directory, table.getTable()), k -> new Entry());
+            entry.seconds.add(table.getNanos() / 1e9);
+            entry.rowsPerSecond.add(table.getRowsPerSecond());
+            synchronized (entry) {
+                entry.rows += table.getRows();
+                entry.bytes += table.getBytes();
+            }
+        }
+    }
+
+    /**
+     * Clears all metrics.
+     */
+    public static void clear() {
+        METRICS.clear();
+    }
+
+    /**
+     * Exports the metrics in the Prometheus text format.
+     *
+     * @return the metrics in the Prometheus text format.
+     */
+    public static String toPrometheus() {
+        Map<Key, Entry> tmp = new TreeMap<>(METRICS);
+        StringBuilder sb = new StringBuilder();
+
+        sb.append("# HELP harvester_table_import_seconds The import duration of the table.\n");
+        sb.append("# TYPE harvester_table_import_seconds summary\n");
+        tmp.forEach((key, entry) -> summary(sb, "harvester_table_import_seconds", key, entry.seconds));
+
+        sb.append("# HELP harvester_table_import_rows_per_second The import throughput of the table.\n");
+        sb.append("# TYPE harvester_table_import_rows_per_second summary\n");
+        tmp.forEach((key, entry) -> summary(sb, "harvester_table_import_rows_per_second", key, entry.rowsPerSecond));
+
+        sb.append("# HELP harvester_table_import_rows_total The imported rows of the table.\n");
+        sb.append("# TYPE harvester_table_import_rows_total counter\n");
+        tmp.forEach((key, entry) -> {
+            synchronized (entry) {
+                sample(sb, "harvester_table_import_rows_total", key, null, entry.rows);
+            }
+        });
+
+        sb.append("# HELP harvester_table_import_bytes_total The read bytes of the table files.\n");
+        sb.append("# TYPE harvester_table_import_bytes_total counter\n");
+        tmp.forEach((key, entry) -> {
+            synchronized (entry) {
+                sample(sb, "harvester_table_import_bytes_total", key, null, entry.bytes);
+            }
+        });
+        return sb.toString();
+    }
+
+    /**
+     * Appends the summary of the histogram.
+     *
+     * @param sb the output.
+     * @param name the metric name.
+     * @param key the directory and table.
+     * @param histogram the histogram.
+     */
+    private static void summary(StringBuilder sb, String name, Key key, RollingHistogram histogram) {
+        double[] values = histogram.getQuantiles(QUANTILES);
+        for (int i = 0; i < QUANTILES.length; i++) {
+            sample(sb, name, key, Double.toString(QUANTILES[i]), values[i]);
+        }
+        sample(sb, name + "_sum", key, null, histogram.getSum());
+        sample(sb, name + "_count", key, null, histogram.getCount());
+    }
+
+    /**
+     * Appends the sample.
+     *
+     * @param sb the output.
+     * @param name the metric name.
+     * @param key the directory and table.
+     * @param quantile the quantile or {@code null}.
+     * @param value the value.
+     */
+    private static void sample(StringBuilder sb, String name, Key key, String quantile, double value) {
+        sb.append(name).append("{directory=\"").append(escape(key.directory))
+                .append("\",table=\"").append(escape(key.table)).append('"');
+        if (quantile != null) {
+            sb.append(",quantile=\"").append(quantile).append('"');
+        }
+        sb.append("} ");
+        if (Double.isNaN(value)) {
+            sb.append("NaN");
+        } else if (value == Math.rint(value) && !Double.isInfinite(value)) {
+            sb.append((long) value);
+        } else {
+            sb.append(String.format(Locale.ROOT, "%.6f", value));
+        }
+        sb.append('\n');
+    }
+
+    /**
+     * Escapes the label value.
+     *
+     * @param value the label value.
+     * @return the escaped label value.
+     */
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /**
+     * The directory and table key.
+     */
+    private static final class Key implements Comparable<Key> {
+
+        /**
+         * The datasource directory name.
+         */
+        private final String directory;
+
+        /**
+         * The table name.
+         */
+        private final String table;
+
+        /**
+         * The default constructor.
+         *
+         * @param directory the datasource directory name.
+         * @param table the table name.
+         */
+        Key(String directory, String table) {
+            this.directory = directory;
+            this.table = table;
+        }
+
+        /**
+         * {@inheritDoc }
+         */
+        @Override
+        public int compareTo(Key other) {
+            int result = directory.compareTo(other.directory);
+            if (result == 0) {
+                result = table.compareTo(other.table);
+            }
+            return result;
+        }
+
+        /**
+         * {@inheritDoc }
+         */
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return directory.equals(other.directory) && table.equals(other.table);
+        }
+
+        /**
+         * {@inheritDoc }
+         */
+        @Override
+        public int hashCode() {
+            return 31 * directory.hashCode() + table.hashCode();
+        }
+    }
+
+    /**
+     * The metrics of the table.
+     */
+    private static final class Entry {
+
+        /**
+         * The duration histogram.
+         */
+        private final RollingHistogram seconds = new RollingHistogram(WINDOW);
+
+        /**
+         * The throughput histogram.
+         */
+        private final RollingHistogram rowsPerSecond = new RollingHistogram(WINDOW);
+
+        /**
+         * The total number of the rows.
+         */
+        private long rows;
+
+        /**
+         * The total number of the bytes.
+         */
+        private long bytes;
+    }
+}
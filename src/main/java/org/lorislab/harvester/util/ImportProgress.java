@@ -0,0 +1,87 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import org.lorislab.harvester.dataset.StreamingDataSet;
+import org.lorislab.harvester.dataset.TableProgress;
+
+/**
+ * The import progress registry. The running imports register the data sets
+ * and the progress of the opened tables is sampled from the registry.
+ *
+ * @author Andrej_Petras
+ */
+public final class ImportProgress {
+
+    /**
+     * The running data sets with the datasource directory name.
+     */
+    private static final Map<StreamingDataSet, String> DATA_SETS = new ConcurrentHashMap<>();
+
+    /**
+     * The default constructor.
+     */
+    private ImportProgress() {
+        // empty constructor.
+    }
+
+    /**
+     * Registers the data set of the running import.
+     *
+     * @param directory the datasource directory name.
+     * @param dataSet the data set.
+     */
+    public static void register(String directory, StreamingDataSet dataSet) {
+        DATA_SETS.put(dataSet, directory);
+    }
+
+    /**
+     * Removes the data set of the finished import.
+     *
+     * @param dataSet the data set.
+     */
+    public static void unregister(StreamingDataSet dataSet) {
+        DATA_SETS.remove(dataSet);
+    }
+
+    /**
+     * Returns {@code true} if there is no running import.
+     *
+     * @return {@code true} if there is no running import.
+     */
+    public static boolean isEmpty() {
+        return DATA_SETS.isEmpty();
+    }
+
+    /**
+     * Gets the progress of the opened tables of the running imports.
+     *
+     * @return the progress of the opened tables by the datasource directory
+     * name.
+     */
+    public static Map<String, List<TableProgress>> getProgress() {
+        Map<String, List<TableProgress>> result = new TreeMap<>();
+        for (Map.Entry<StreamingDataSet, String> entry : DATA_SETS.entrySet()) {
+            result.computeIfAbsent(entry.getValue(), k -> new ArrayList<>()).addAll(entry.getKey().getProgress());
+        }
+        return result;
+    }
+}
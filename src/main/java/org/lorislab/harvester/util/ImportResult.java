@@ -0,0 +1,57 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.lorislab.harvester.dataset.TableMetrics;
+
+/**
+ * The result of the datasource directory import.
+ *
+ * @author Andrej_Petras
+ */
+public class ImportResult {
+
+    /**
+     * The skipped tables.
+     */
+    private final List<String> skippedTables = new ArrayList<>();
+
+    /**
+     * The metrics of the imported tables.
+     */
+    private final List<TableMetrics> tableMetrics = new ArrayList<>();
+
+    /**
+     * Gets the skipped tables.
+     *
+     * @return the skipped tables.
+     */
+    public List<String> getSkippedTables() {
+        return skippedTables;
+    }
+
+    /**
+     * Gets the metrics of the imported tables.
+     *
+     * @return the metrics of the imported tables.
+     */
+    public List<TableMetrics> getTableMetrics() {
+        return tableMetrics;
+    }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.util;
+
+import java.util.Arrays;
+
+/**
+ * The rolling histogram. The histogram keeps the last samples in the ring
+ * buffer for the quantiles and the total sum and count of all samples.
+ *
+ * @author Andrej_Petras
+ */
+public class RollingHistogram {
+
+    /**
+     * The samples ring buffer.
+     */
+    private final double[] samples;
+
+    /**
+     * The number of all samples.
+     */
+    private long count;
+
+    /**
+     * The sum of all samples.
+     */
+    private double sum;
+
+    /**
+     * The default constructor.
+     *
+     * @param size the number of the samples in the window.
+     */
+    public RollingHistogram(int size) {
+        this.samples = new double[size];
+    }
+
+    /**
+     * Adds the sample.
+     *
+     * @param value the sample value.
+     */
+    public synchronized void add(double value) {
+        samples[(int) (count % samples.length)] = value;
+        count++;
+        sum += value;
+    }
+
+    /**
+     * Gets the number of all samples.
+     *
+     * @return the number of all samples.
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the sum of all samples.
+     *
+     * @return the sum of all samples.
+     */
+    public synchronized double getSum() {
+        return sum;
+    }
+
+    /**
+     * Gets the quantiles of the samples in the window.
+     *
+     * @param quantiles the quantiles between {@code 0} and {@code 1}.
+     * @return the values of the quantiles or {@code NaN} if there is no
+     * sample.
+     */
+    public double[] getQuantiles(double... quantiles) {
+        double[] window;
+        synchronized (this) {
+            window = Arrays.copyOf(samples, (int) Math.min(count, samples.length));
+        }
+        Arrays.sort(window);
+        double[] result = new double[quantiles.length];
+        for (int i = 0; i < quantiles.length; i++) {
+            if (window.length == 0) {
+                result[i] = Double.NaN;
+            } else {
+                int index = (int) Math.ceil(quantiles[i] * window.length) - 1;
+                result[i] = window[Math.max(0, Math.min(index, window.length - 1))];
+            }
+        }
+        return result;
+    }
+}
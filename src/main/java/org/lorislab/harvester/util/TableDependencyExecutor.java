@@ -0,0 +1,344 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.util;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.dbunit.database.IDatabaseConnection;
+import org.dbunit.dataset.IDataSet;
+
+/**
+ * The table dependency executor. The executor runs the table tasks in the
+ * order of the foreign key dependencies. The table task starts after all
+ * tasks of the parent tables are finished, the independent tables run at the
+ * same time. The tables with the cyclic dependencies are executed in one task
+ * after all other tables.
+ *
+ * The calling thread takes part in the execution, the tasks submitted to the
+ * executor service only help. The execution therefore finishes even if the
+ * executor service does not have any free thread.
+ *
+ * @author Andrej_Petras
+ */
+public class TableDependencyExecutor {
+
+    /**
+     * The logger for this class.
+     */
+    private static final Logger LOGGER = Logger.getLogger(TableDependencyExecutor.class.getName());
+
+    /**
+     * The lock.
+     */
+    private final Object lock = new Object();
+
+    /**
+     * The units ready to execute.
+     */
+    private final Deque<Unit> ready = new ArrayDeque<>();
+
+    /**
+     * The table task.
+     */
+    private final TableTask task;
+
+    /**
+     * The number of units which are not finished.
+     */
+    private int remaining;
+
+    /**
+     * The number of the running units.
+     */
+    private int running;
+
+    /**
+     * The first error.
+     */
+    private Exception error;
+
+    /**
+     * The default constructor.
+     *
+     * @param tables the ordered table names.
+     * @param parents the parent tables for each table.
+     * @param task the table task.
+     */
+    public TableDependencyExecutor(List<String> tables, Map<String, Set<String>> parents, TableTask task) {
+        this.task = task;
+        createUnits(tables, parents);
+    }
+
+    /**
+     * Executes the table tasks.
+     *
+     * @param executor the executor service for the helper tasks.
+     * @param parallelism the maximum number of the parallel tasks.
+     * @throws Exception if one of the table tasks fails.
+     */
+    public void execute(ExecutorService executor, int parallelism) throws Exception {
+        for (int i = 1; i < parallelism; i++) {
+            executor.submit(this::work);
+        }
+        work();
+        synchronized (lock) {
+            while (running > 0) {
+                lock.wait();
+            }
+            if (error != null) {
+                throw error;
+            }
+        }
+    }
+
+    /**
+     * Reads the parent tables of the tables from the foreign keys in the
+     * database meta data. Only the parents from the table list are returned.
+     *
+     * @param connection the database connection.
+     * @param tables the table names.
+     * @return the parent tables for each table.
+     * @throws Exception if the method fails.
+     */
+    public static Map<String, Set<String>> readDependencies(IDatabaseConnection connection, List<String> tables) throws Exception {
+        IDataSet databaseDataSet = connection.createDataSet();
+        Map<String, String> dbNames = new LinkedHashMap<>();
+        Map<String, String> names = new HashMap<>();
+        for (String table : tables) {
+            String dbName = databaseDataSet.getTableMetaData(table).getTableName();
+            dbNames.put(table, dbName);
+            names.put(dbName.toUpperCase(), table);
+        }
+
+        Map<String, Set<String>> result = new LinkedHashMap<>();
+        DatabaseMetaData metaData = connection.getConnection().getMetaData();
+        for (Map.Entry<String, String> entry : dbNames.entrySet()) {
+            Set<String> parents = new LinkedHashSet<>();
+            try (ResultSet rs = metaData.getImportedKeys(null, connection.getSchema(), entry.getValue())) {
+                while (rs.next()) {
+                    String parent = names.get(rs.getString("PKTABLE_NAME").toUpperCase());
+                    if (parent != null && !parent.equals(entry.getKey())) {
+                        parents.add(parent);
+                    }
+                }
+            }
+            LOGGER.log(Level.FINE, "Table {0} parents {1}", new Object[]{entry.getKey(), parents});
+            result.put(entry.getKey(), parents);
+        }
+        return result;
+    }
+
+    /**
+     * Creates the execution units.
+     *
+     * @param tables the ordered table names.
+     * @param parents the parent tables for each table.
+     */
+    private void createUnits(List<String> tables, Map<String, Set<String>> parents) {
+        Map<String, Unit> units = new LinkedHashMap<>();
+        Map<String, Integer> pending = new HashMap<>();
+        Map<String, List<String>> children = new HashMap<>();
+        for (String table : tables) {
+            units.put(table, new Unit(table));
+            pending.put(table, 0);
+            children.put(table, new ArrayList<>());
+        }
+        for (String table : tables) {
+            for (String parent : parents.getOrDefault(table, new LinkedHashSet<>())) {
+                if (units.containsKey(parent)) {
+                    children.get(parent).add(table);
+                    pending.put(table, pending.get(table) + 1);
+                }
+            }
+        }
+
+        // topological sort, the rest of the tables has cyclic dependencies
+        Deque<String> queue = new ArrayDeque<>();
+        tables.stream().filter(t -> pending.get(t) == 0).forEach(queue::add);
+        Set<String> sorted = new LinkedHashSet<>();
+        while (!queue.isEmpty()) {
+            String table = queue.poll();
+            sorted.add(table);
+            for (String child : children.get(table)) {
+                int count = pending.get(child) - 1;
+                pending.put(child, count);
+                if (count == 0) {
+                    queue.add(child);
+                }
+            }
+        }
+
+        List<String> cyclic = new ArrayList<>();
+        for (String table : tables) {
+            if (!sorted.contains(table)) {
+                cyclic.add(table);
+            }
+        }
+
+        for (String table : sorted) {
+            Unit unit = units.get(table);
+            for (String child : children.get(table)) {
+                if (sorted.contains(child)) {
+                    unit.children.add(units.get(child));
+                    units.get(child).pending++;
+                }
+            }
+        }
+        remaining = sorted.size();
+
+        if (!cyclic.isEmpty()) {
+            LOGGER.log(Level.WARNING, "Tables with cyclic dependencies are executed serially: {0}", cyclic);
+            Unit group = new Unit(cyclic);
+            for (String table : sorted) {
+                units.get(table).children.add(group);
+                group.pending++;
+            }
+            remaining++;
+            if (group.pending == 0) {
+                ready.add(group);
+            }
+        }
+
+        for (String table : sorted) {
+            Unit unit = units.get(table);
+            if (unit.pending == 0) {
+                ready.add(unit);
+            }
+        }
+    }
+
+    /**
+     * Executes the ready units until all units are finished or the execution
+     * failed.
+     */
+    private void work() {
+        while (true) {
+            Unit unit;
+            synchronized (lock) {
+                while (ready.isEmpty() && remaining > 0 && error == null) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        if (error == null) {
+                            error = ex;
+                        }
+                        lock.notifyAll();
+                        return;
+                    }
+                }
+                if (remaining == 0 || error != null) {
+                    return;
+                }
+                unit = ready.poll();
+                running++;
+            }
+
+            Exception failure = null;
+            try {
+                LOGGER.log(Level.FINE, "Execute tables {0}", unit.tables);
+                task.execute(unit.tables);
+            } catch (Exception ex) {
+                failure = ex;
+            }
+
+            synchronized (lock) {
+                running--;
+                remaining--;
+                if (failure != null) {
+                    if (error == null) {
+                        error = failure;
+                    }
+                } else {
+                    for (Unit child : unit.children) {
+                        child.pending--;
+                        if (child.pending == 0) {
+                            ready.add(child);
+                        }
+                    }
+                }
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * The table task.
+     */
+    @FunctionalInterface
+    public interface TableTask {
+
+        /**
+         * Executes the tables in one transaction.
+         *
+         * @param tables the ordered table names.
+         * @throws Exception if the method fails.
+         */
+        void execute(List<String> tables) throws Exception;
+    }
+
+    /**
+     * The execution unit.
+     */
+    private static class Unit {
+
+        /**
+         * The tables.
+         */
+        private final List<String> tables;
+
+        /**
+         * The dependent units.
+         */
+        private final List<Unit> children = new ArrayList<>();
+
+        /**
+         * The number of the not finished parent units.
+         */
+        private int pending;
+
+        /**
+         * Creates the unit for one table.
+         *
+         * @param table the table.
+         */
+        Unit(String table) {
+            this.tables = new ArrayList<>();
+            this.tables.add(table);
+        }
+
+        /**
+         * Creates the unit for the tables.
+         *
+         * @param tables the tables.
+         */
+        Unit(List<String> tables) {
+            this.tables = tables;
+        }
+    }
+}
@@ -16,6 +16,9 @@
 package org.lorislab.harvester.web.model;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import org.lorislab.harvester.dataset.TableMetrics;
 
 /**
  *
@@ -24,6 +27,10 @@ import java.io.Serializable;
 public class ImportLogItem implements Serializable {
     
     private static final long serialVersionUID = -3094173919003877283L;
+
+    private long id;
+
+    private long jobId;
     
     private String jndi;
     
@@ -33,6 +40,26 @@ public class ImportLogItem implements Serializable {
 
     private String operation;
     
+    private List<String> skippedTables = new ArrayList<>();
+
+    private List<TableMetrics> tableMetrics = new ArrayList<>();
+    
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public long getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(long jobId) {
+        this.jobId = jobId;
+    }
+
     /**
      * @return the jndi
      */
@@ -82,5 +109,20 @@ public class ImportLogItem implements Serializable {
     public void setOperation(String operation) {
         this.operation = operation;
     }
-        
+
+    public List<String> getSkippedTables() {
+        return skippedTables;
+    }
+
+    public void setSkippedTables(List<String> skippedTables) {
+        this.skippedTables = skippedTables;
+    }
+
+    public List<TableMetrics> getTableMetrics() {
+        return tableMetrics;
+    }
+
+    public void setTableMetrics(List<TableMetrics> tableMetrics) {
+        this.tableMetrics = tableMetrics;
+    }
 }
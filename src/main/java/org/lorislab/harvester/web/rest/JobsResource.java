@@ -0,0 +1,148 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.web.rest;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import javax.inject.Inject;
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonString;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.GET;
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import org.lorislab.harvester.web.model.ImportJob;
+import org.lorislab.harvester.web.service.ImportJobException;
+import org.lorislab.harvester.web.service.ImportJobService;
+
+/**
+ * The import job resource. The job is submitted by the JSON object with the
+ * {@code operation}, the optional {@code directories} array (all directories
+ * if it is missing) and the optional {@code priority}.
+ *
+ * @author Andrej_Petras
+ */
+@Path("jobs")
+@Produces(MediaType.APPLICATION_JSON)
+public class JobsResource {
+
+    @Inject
+    private ImportJobService service;
+
+    @GET
+    public JsonArray getJobs() {
+        JsonArrayBuilder result = Json.createArrayBuilder();
+        service.getJobs().forEach(job -> result.add(toJson(job)));
+        return result.build();
+    }
+
+    @GET
+    @Path("{id}")
+    public JsonObject getJob(@PathParam("id") long id) {
+        ImportJob job = service.getJob(id);
+        if (job == null) {
+            throw new NotFoundException("The job " + id + " does not exists");
+        }
+        return toJson(job).build();
+    }
+
+    @POST
+    @Consumes(MediaType.APPLICATION_JSON)
+    public Response submit(JsonObject request) throws Exception {
+        List<String> directories = new ArrayList<>();
+        try {
+            if (request.containsKey("directories")) {
+                request.getJsonArray("directories").getValuesAs(JsonString.class).forEach(item -> directories.add(item.getString()));
+            }
+            ImportJob job = service.submit(request.getString("operation", null), directories, request.getInt("priority", 0));
+            return Response.status(Response.Status.CREATED).entity(toJson(job).build()).build();
+        } catch (ClassCastException ex) {
+            return badRequest("The directories must be the array of the directory names");
+        } catch (ImportJobException ex) {
+            return badRequest(ex.getMessage());
+        }
+    }
+
+    @DELETE
+    @Path("{id}")
+    public Response cancel(@PathParam("id") long id) {
+        if (!service.cancel(id)) {
+            return Response.status(Response.Status.CONFLICT).build();
+        }
+        return Response.noContent().build();
+    }
+
+    /**
+     * Creates the bad request response with the error message.
+     *
+     * @param message the error message.
+     * @return the bad request response.
+     */
+    private static Response badRequest(String message) {
+        return Response.status(Response.Status.BAD_REQUEST).entity(Json.createObjectBuilder().add("error", message).build()).build();
+    }
+
+    /**
+     * Converts the job to the JSON object.
+     *
+     * @param job the job.
+     * @return the JSON object.
+     */
+    private static JsonObjectBuilder toJson(ImportJob job) {
+        JsonArrayBuilder directories = Json.createArrayBuilder();
+        job.getDirectories().forEach(directories::add);
+        JsonArrayBuilder jndis = Json.createArrayBuilder();
+        job.getJndis().forEach(jndis::add);
+        JsonObjectBuilder result = Json.createObjectBuilder()
+                .add("id", job.getId())
+                .add("operation", job.getOperation())
+                .add("priority", job.getPriority())
+                .add("status", job.getStatus().name())
+                .add("directories", directories)
+                .add("jndis", jndis);
+        add(result, "submitted", job.getSubmitted());
+        add(result, "started", job.getStarted());
+        add(result, "finished", job.getFinished());
+        if (job.getMessage() != null) {
+            result.add("message", job.getMessage());
+        }
+        return result;
+    }
+
+    /**
+     * Adds the date as the epoch milliseconds if it is not {@code null}.
+     *
+     * @param builder the JSON object builder.
+     * @param name the name.
+     * @param value the date.
+     */
+    private static void add(JsonObjectBuilder builder, String name, Date value) {
+        if (value != null) {
+            builder.add(name, value.getTime());
+        }
+    }
+}
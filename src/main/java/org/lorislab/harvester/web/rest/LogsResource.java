@@ -0,0 +1,111 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.web.rest;
+
+import java.util.List;
+import javax.inject.Inject;
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+import org.lorislab.harvester.dataset.TableMetrics;
+import org.lorislab.harvester.web.model.ImportLogItem;
+import org.lorislab.harvester.web.service.ImportLogStore;
+
+/**
+ * The import log resource. The client reads the items after the cursor
+ * {@code after} or the older items before the cursor {@code before}. Without
+ * the cursor the last items are returned.
+ *
+ * @author Andrej_Petras
+ */
+@Path("logs")
+public class LogsResource {
+
+    @Inject
+    private ImportLogStore store;
+
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public JsonObject getLogs(@QueryParam("after") Long after, @QueryParam("before") Long before,
+            @QueryParam("limit") @DefaultValue("50") int limit) {
+        int size = Math.max(0, Math.min(limit, ImportLogStore.CAPACITY));
+        List<ImportLogItem> items;
+        if (after != null) {
+            items = store.getAfter(after, size);
+        } else if (before != null) {
+            items = store.getBefore(before, size);
+        } else {
+            items = store.getLast(size);
+        }
+        JsonArrayBuilder array = Json.createArrayBuilder();
+        items.forEach(item -> array.add(toJson(item)));
+        return Json.createObjectBuilder()
+                .add("last", store.getLastId())
+                .add("items", array)
+                .build();
+    }
+
+    /**
+     * Converts the import log item to the JSON object.
+     *
+     * @param item the import log item.
+     * @return the JSON object.
+     */
+    private static JsonObjectBuilder toJson(ImportLogItem item) {
+        JsonObjectBuilder result = Json.createObjectBuilder().add("id", item.getId());
+        add(result, "operation", item.getOperation());
+        add(result, "file", item.getFile());
+        add(result, "jndi", item.getJndi());
+        add(result, "message", item.getMessage());
+        JsonArrayBuilder skipped = Json.createArrayBuilder();
+        if (item.getSkippedTables() != null) {
+            item.getSkippedTables().forEach(skipped::add);
+        }
+        result.add("skippedTables", skipped);
+        JsonArrayBuilder tables = Json.createArrayBuilder();
+        if (item.getTableMetrics() != null) {
+            for (TableMetrics table : item.getTableMetrics()) {
+                tables.add(Json.createObjectBuilder()
+                        .add("table", table.getTable())
+                        .add("rows", table.getRows())
+                        .add("bytes", table.getBytes())
+                        .add("millis", table.getMillis()));
+            }
+        }
+        result.add("tableMetrics", tables);
+        return result;
+    }
+
+    /**
+     * Adds the value if it is not {@code null}.
+     *
+     * @param builder the JSON object builder.
+     * @param name the name.
+     * @param value the value.
+     */
+    private static void add(JsonObjectBuilder builder, String name, String value) {
+        if (value != null) {
+            builder.add(name, value);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.web.service;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.PostConstruct;
+import javax.ejb.DependsOn;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.inject.Inject;
+import org.lorislab.harvester.web.model.DatasourceDirectoryData;
+import org.lorislab.harvester.web.model.DirectoryData;
+
+/**
+ * The data source warm-up service. Reports the JNDI of all datasource
+ * directories resolved by the initial scan of the directory watch service at
+ * the deploy time.
+ *
+ * @author Andrej_Petras
+ */
+@Singleton
+@Startup
+@DependsOn("DirectoryWatchService")
+public class DataSourceWarmUpService {
+
+    private static final Logger LOGGER = Logger.getLogger(DataSourceWarmUpService.class.getName());
+
+    @Inject
+    private DirectoryWatchService service;
+
+    @PostConstruct
+    public void warmUp() {
+        try {
+            DirectoryData data = service.getDirectoryData();
+            if (data.getDatasources() != null) {
+                for (DatasourceDirectoryData item : data.getDatasources()) {
+                    if (item.getError() != null) {
+                        LOGGER.log(Level.WARNING, "Error resolve the datasource directory {0} error: {1}", new Object[]{item.getName(), item.getError()});
+                    } else {
+                        LOGGER.log(Level.INFO, "Resolved the JNDI: {0}", item.getJndi());
+                    }
+                }
+            }
+        } catch (Exception ex) {
+            LOGGER.log(Level.SEVERE, "Error warm-up the data sources", ex);
+        }
+    }
+}
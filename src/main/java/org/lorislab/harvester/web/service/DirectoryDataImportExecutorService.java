@@ -22,23 +22,39 @@ import java.nio.file.Path;
 import java.nio.file.PathMatcher;
 import java.nio.file.Paths;
 import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import javax.ejb.Asynchronous;
+import javax.annotation.Resource;
 import javax.ejb.Stateless;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.enterprise.concurrent.ManagedExecutorService;
 import javax.enterprise.event.Event;
 import javax.inject.Inject;
 import javax.sql.DataSource;
 import org.lorislab.harvester.util.DataSourceUtil;
 import org.lorislab.harvester.util.DbUnitExecutorUtil;
 import org.lorislab.harvester.util.HarvesterProperties;
-import org.lorislab.harvester.web.events.OnCloseEvent;
-import org.lorislab.harvester.web.events.OnOpenEvent;
+import org.lorislab.harvester.util.ImportMetrics;
+import org.lorislab.harvester.util.ImportResult;
 import org.lorislab.harvester.web.events.OnUpdateEvent;
 import org.lorislab.harvester.web.model.DatasourceDirectoryData;
 import org.lorislab.harvester.web.model.DirectoryData;
+import org.lorislab.harvester.web.model.ImportJob;
 import org.lorislab.harvester.web.model.ImportLogItem;
 
 /**
@@ -49,9 +65,14 @@ import org.lorislab.harvester.web.model.ImportLogItem;
 public class DirectoryDataImportExecutorService {
 
     /**
-     * The EXCEL file matcher.
+     * The plain and compressed CSV file matcher.
      */
-    private static final PathMatcher MATCHER_EXCEL = FileSystems.getDefault().getPathMatcher("glob:**.csv");
+    private static final PathMatcher MATCHER_CSV = FileSystems.getDefault().getPathMatcher("glob:**.{csv,csv.gz,csv.bz2,csv.lz4}");
+
+    /**
+     * The XLSX file matcher.
+     */
+    private static final PathMatcher MATCHER_XLSX = FileSystems.getDefault().getPathMatcher("glob:**.xlsx");
 
     private static final Logger LOGGER = Logger.getLogger(DirectoryDataImportExecutorService.class.getName());
 
@@ -59,66 +80,133 @@ public class DirectoryDataImportExecutorService {
     @OnUpdateEvent
     private Event<ImportLogItem> events;
 
-    @Inject
-    @OnOpenEvent
-    private Event<String> openEvents;
+    @Resource
+    private ManagedExecutorService executor;
 
-    @Inject
-    @OnCloseEvent
-    private Event<String> closeEvents;
+    /**
+     * Executes the operation of the job for the datasource directories. The
+     * cancellation of the job is checked before each directory.
+     *
+     * @param job the import job.
+     * @param entries the datasource directories.
+     * @throws InterruptedException if the thread was interrupted.
+     */
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public void executeJob(ImportJob job, List<Path> entries) throws InterruptedException {
+        String operation = job.getOperation();
+        int parallelism = HarvesterProperties.getParallelism();
+        if (parallelism > 1 && entries.size() > 1) {
+            LOGGER.log(Level.INFO, "Parallel import with parallelism: {0}", parallelism);
+            executeParallel(job, entries, parallelism);
+        } else {
+            for (Path entry : entries) {
+                if (job.isCancelled()) {
+                    break;
+                }
+                events.fire(importDirectory(job.getId(), operation, entry));
+            }
+        }
+    }
 
-    @Asynchronous
-    public void executeOperation(String operation) {
+    /**
+     * Imports the datasource directories in the managed executor. At most
+     * {@code parallelism} directories are imported at the same time. The
+     * import log items are fired from the calling thread as soon as the
+     * corresponding directory is finished. If the calling thread is
+     * interrupted the running imports are cancelled and the method waits
+     * until they are finished.
+     *
+     * @param job the import job.
+     * @param entries the datasource directories.
+     * @param parallelism the maximum number of the parallel imports.
+     * @throws InterruptedException if the thread was interrupted.
+     */
+    private void executeParallel(ImportJob job, List<Path> entries, int parallelism) throws InterruptedException {
+        CompletionService<ImportLogItem> completion = new ExecutorCompletionService<>(executor);
+        Map<Future<ImportLogItem>, DirectoryImport> pending = new HashMap<>();
+        Iterator<Path> iter = entries.iterator();
+        while (pending.size() < parallelism && iter.hasNext()) {
+            DirectoryImport task = new DirectoryImport(job, iter.next());
+            pending.put(completion.submit(task), task);
+        }
         try {
-            LOGGER.info("Start");
-            openEvents.fire("Start");
-
-            String dir = HarvesterProperties.getRootDirectory();
-
-            Path root = Paths.get(dir);
-            if (Files.exists(root)) {
-                try (DirectoryStream<Path> stream = Files.newDirectoryStream(root, Files::isDirectory)) {
-                    for (Path entry : stream) {
-                        ImportLogItem log = new ImportLogItem();                        
-                        log.setFile(entry.toString());
-                        log.setOperation(operation);
-                        
-                        String dirName = entry.getFileName().toString();
-                        try {
-                            LOGGER.log(Level.INFO, "Start import directory: {0}", dirName);
-
-                            Properties properties = HarvesterProperties.getHarvesterProperties(entry);
-                            String jndi = properties.getProperty("jndi");                            
-                            log.setJndi(jndi);                            
-                            
-                            LOGGER.log(Level.INFO, "JNDI: {0}", jndi);
-                            try (Connection connection = DataSourceUtil.getConnection(jndi)) {
-                                if (Files.isDirectory(entry)) {
-                                        DbUnitExecutorUtil.execute(connection, operation, entry);                                                                                                                        
-                                } else {
-                                    LOGGER.log(Level.WARNING, "The data is not directory {0}", entry.toString());
-                                }
-                            }
-
-                        } catch (Exception ex) {
-                            LOGGER.log(Level.SEVERE, "Error execute absolute for the JNDI: {0} error: {1}", new Object[]{dirName, ex.getMessage()});
-                            LOGGER.log(Level.FINEST, "Error: " + ex.getMessage(), ex);
-                            log.setMessage(ex.toString());                            
-                        }
-                        
-                        events.fire(log);
-                    }
+            while (!pending.isEmpty()) {
+                Future<ImportLogItem> future = completion.take();
+                DirectoryImport task = pending.remove(future);
+                try {
+                    events.fire(future.get());
+                } catch (ExecutionException ex) {
+                    LOGGER.log(Level.SEVERE, "Error execute the import worker", ex.getCause());
+                    events.fire(task.createLog(ex.getCause()));
                 }
+                if (iter.hasNext() && !job.isCancelled()) {
+                    DirectoryImport next = new DirectoryImport(job, iter.next());
+                    pending.put(completion.submit(next), next);
+                }
+            }
+        } catch (InterruptedException ex) {
+            LOGGER.log(Level.WARNING, "Cancel the running imports of the job {0}", job.getId());
+            for (Map.Entry<Future<ImportLogItem>, DirectoryImport> entry : pending.entrySet()) {
+                entry.getKey().cancel(true);
+            }
+            for (DirectoryImport task : pending.values()) {
+                ImportLogItem log = task.awaitFinished();
+                if (log != null) {
+                    events.fire(log);
+                }
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Imports the datasource directory.
+     *
+     * @param jobId the import job id.
+     * @param operation the operation.
+     * @param entry the datasource directory.
+     * @return the import log item.
+     */
+    private ImportLogItem importDirectory(long jobId, String operation, Path entry) {
+        ImportLogItem log = new ImportLogItem();
+        log.setJobId(jobId);
+        log.setFile(entry.toString());
+        log.setOperation(operation);
+
+        String dirName = entry.getFileName().toString();
+        try {
+            LOGGER.log(Level.INFO, "Start import directory: {0}", dirName);
+
+            Properties properties = HarvesterProperties.getHarvesterProperties(entry);
+            String jndi = properties.getProperty(HarvesterProperties.JNDI);
+            log.setJndi(jndi);
+
+            LOGGER.log(Level.INFO, "JNDI: {0}", jndi);
+            int tableParallelism = HarvesterProperties.getInteger(properties, HarvesterProperties.TABLE_PARALLELISM, 1);
+            ImportResult result = null;
+            if (tableParallelism > 1 && DbUnitExecutorUtil.isParallelOperation(operation)) {
+                result = DbUnitExecutorUtil.executeParallel(DataSourceUtil.getDataSource(jndi), executor, tableParallelism, operation, entry, properties);
             } else {
-                LOGGER.log(Level.WARNING, "The harvester root directory does not exists. Directory: {0}", root.toString());
+                try (Connection connection = DataSourceUtil.getConnection(jndi)) {
+                    if (Files.isDirectory(entry)) {
+                        result = DbUnitExecutorUtil.execute(connection, operation, entry, properties);
+                    } else {
+                        LOGGER.log(Level.WARNING, "The data is not directory {0}", entry.toString());
+                    }
+                }
             }
-            
+            if (result != null) {
+                log.setSkippedTables(result.getSkippedTables());
+                log.setTableMetrics(result.getTableMetrics());
+                ImportMetrics.record(dirName, result.getTableMetrics());
+            }
+
         } catch (Exception ex) {
-            ex.printStackTrace();
+            LOGGER.log(Level.SEVERE, "Error execute absolute for the JNDI: {0} error: {1}", new Object[]{dirName, ex.getMessage()});
+            LOGGER.log(Level.FINEST, "Error: " + ex.getMessage(), ex);
+            log.setMessage(ex.toString());
         }
-
-        closeEvents.fire("Close");
-        LOGGER.info("Close");
+        return log;
     }
 
     public DirectoryData getDirectoryData() throws Exception {
@@ -136,32 +224,143 @@ public class DirectoryDataImportExecutorService {
 
             try (DirectoryStream<Path> stream = Files.newDirectoryStream(root, Files::isDirectory)) {
                 for (Path entry : stream) {
+                    result.getDatasources().add(loadDatasourceDirectoryData(entry));
+                }
+            }
+        }
+        return result;
+    }
 
-                    DatasourceDirectoryData item = new DatasourceDirectoryData();
-                    item.setName(entry.getFileName().toString());
-                    item.setFiles(new HashSet<>());
+    /**
+     * Loads the datasource directory data.
+     *
+     * @param entry the datasource directory.
+     * @return the datasource directory data.
+     */
+    public static DatasourceDirectoryData loadDatasourceDirectoryData(Path entry) {
+        DatasourceDirectoryData item = new DatasourceDirectoryData();
+        item.setName(entry.getFileName().toString());
+        item.setFiles(new HashSet<>());
 
-                    try {
-                        Properties properties = HarvesterProperties.getHarvesterProperties(entry);
-                        String jndi = properties.getProperty("jndi");
-                        item.setJndi(jndi);
+        try {
+            Properties properties = HarvesterProperties.getHarvesterProperties(entry);
+            String jndi = properties.getProperty(HarvesterProperties.JNDI);
+            item.setJndi(jndi);
 
-                        try (DirectoryStream<Path> tmp = Files.newDirectoryStream(entry, (Path file) -> {
-                            return Files.isRegularFile(file) && MATCHER_EXCEL.matches(file);
-                        })) {
-                            tmp.forEach((file) -> item.getFiles().add(file.getFileName().toString()));
-                        }
+            try (DirectoryStream<Path> tmp = Files.newDirectoryStream(entry, (Path file) -> {
+                return Files.isRegularFile(file) && (MATCHER_CSV.matches(file) || MATCHER_XLSX.matches(file));
+            })) {
+                tmp.forEach((file) -> item.getFiles().add(file.getFileName().toString()));
+            }
 
-                        DataSource ds = DataSourceUtil.getDataSource(jndi);
+            DataSource ds = DataSourceUtil.getDataSource(jndi);
 
-                    } catch (Exception ex) {
-                        item.setError(ex.toString());
-                    }
+        } catch (Exception ex) {
+            item.setError(ex.toString());
+        }
+        return item;
+    }
+    /**
+     * The import of the datasource directory in the managed executor. The
+     * import could be skipped before it is started, the started import is
+     * always finished with the import log item.
+     */
+    private final class DirectoryImport implements Callable<ImportLogItem> {
 
-                    result.getDatasources().add(item);
+        /**
+         * The import job.
+         */
+        private final ImportJob job;
+
+        /**
+         * The datasource directory.
+         */
+        private final Path entry;
+
+        /**
+         * The started or skipped flag.
+         */
+        private final AtomicBoolean started = new AtomicBoolean();
+
+        /**
+         * The finished signal of the started import.
+         */
+        private final CountDownLatch finished = new CountDownLatch(1);
+
+        /**
+         * The import log item.
+         */
+        private volatile ImportLogItem log;
+
+        /**
+         * The default constructor.
+         *
+         * @param job the import job.
+         * @param entry the datasource directory.
+         */
+        DirectoryImport(ImportJob job, Path entry) {
+            this.job = job;
+            this.entry = entry;
+        }
+
+        /**
+         * {@inheritDoc }
+         */
+        @Override
+        public ImportLogItem call() {
+            if (!started.compareAndSet(false, true)) {
+                return null;
+            }
+            try {
+                log = importDirectory(job.getId(), job.getOperation(), entry);
+            } catch (RuntimeException | Error ex) {
+                log = createLog(ex);
+                throw ex;
+            } finally {
+                finished.countDown();
+            }
+            return log;
+        }
+
+        /**
+         * Creates the import log item of the failed import.
+         *
+         * @param error the error.
+         * @return the import log item.
+         */
+        ImportLogItem createLog(Throwable error) {
+            ImportLogItem result = new ImportLogItem();
+            result.setJobId(job.getId());
+            result.setFile(entry.toString());
+            result.setOperation(job.getOperation());
+            result.setMessage(error.toString());
+            return result;
+        }
+
+        /**
+         * Skips the import which is not started or waits until the started
+         * import is finished. The wait is not interrupted.
+         *
+         * @return the import log item or {@code null} if the import was
+         * skipped.
+         */
+        ImportLogItem awaitFinished() {
+            if (started.compareAndSet(false, true)) {
+                return null;
+            }
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    finished.await();
+                    break;
+                } catch (InterruptedException ex) {
+                    interrupted = true;
                 }
             }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            return log;
         }
-        return result;
     }
 }
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.web.service;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.enterprise.concurrent.ManagedThreadFactory;
+import javax.enterprise.event.Event;
+import javax.inject.Inject;
+import org.lorislab.harvester.util.HarvesterProperties;
+import org.lorislab.harvester.web.events.UpdateViewEvent;
+import org.lorislab.harvester.web.model.DatasourceDirectoryData;
+import org.lorislab.harvester.web.model.DirectoryData;
+
+/**
+ * The directory watch service. The service keeps the in-memory model of the
+ * harvester root directory and updates it from the file system events. The
+ * changes are pushed to the clients with the {@value #DIRECTORY_MESSAGE}
+ * message.
+ *
+ * @author Andrej_Petras
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class DirectoryWatchService {
+
+    private static final Logger LOGGER = Logger.getLogger(DirectoryWatchService.class.getName());
+
+    /**
+     * The update view message for the directory changes.
+     */
+    public static final String DIRECTORY_MESSAGE = "directory";
+
+    /**
+     * The time to wait for the next file system events before the model is
+     * updated.
+     */
+    private static final long COALESCE_MILLIS = 200;
+
+    @Inject
+    @UpdateViewEvent
+    private Event<String> events;
+
+    @Resource
+    private ManagedThreadFactory threadFactory;
+
+    private final Map<String, DatasourceDirectoryData> datasources = new ConcurrentHashMap<>();
+
+    private final Map<WatchKey, Path> keys = new ConcurrentHashMap<>();
+
+    private Path root;
+
+    private volatile boolean exists;
+
+    private WatchService watcher;
+
+    @PostConstruct
+    public void init() {
+        root = Paths.get(HarvesterProperties.getRootDirectory()).toAbsolutePath();
+        reload();
+        if (exists) {
+            try {
+                watcher = root.getFileSystem().newWatchService();
+                register(root);
+                for (String name : datasources.keySet()) {
+                    register(root.resolve(name));
+                }
+                Thread thread = threadFactory.newThread(this::watch);
+                thread.setName("harvester-directory-watch");
+                thread.start();
+            } catch (IOException ex) {
+                LOGGER.log(Level.SEVERE, "Error start the directory watch service for the directory " + root, ex);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (watcher != null) {
+            try {
+                watcher.close();
+            } catch (IOException ex) {
+                LOGGER.log(Level.FINEST, "Error close the directory watch service", ex);
+            }
+        }
+    }
+
+    /**
+     * Gets the snapshot of the directory data.
+     *
+     * @return the directory data.
+     */
+    public DirectoryData getDirectoryData() {
+        DirectoryData result = new DirectoryData();
+        result.setName(root.toString());
+        result.setExists(exists);
+        if (exists) {
+            result.setDatasources(new HashSet<>(datasources.values()));
+        }
+        return result;
+    }
+
+    /**
+     * Rescans the whole root directory.
+     */
+    public void reload() {
+        exists = Files.exists(root);
+        if (exists) {
+            Set<String> names = new HashSet<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(root, Files::isDirectory)) {
+                for (Path entry : stream) {
+                    DatasourceDirectoryData item = DirectoryDataImportExecutorService.loadDatasourceDirectoryData(entry);
+                    datasources.put(item.getName(), item);
+                    names.add(item.getName());
+                }
+            } catch (IOException ex) {
+                LOGGER.log(Level.SEVERE, "Error reading the directory " + root, ex);
+            }
+            datasources.keySet().retainAll(names);
+        } else {
+            LOGGER.log(Level.WARNING, "The harvester root directory does not exists. Directory: {0}", root.toString());
+            datasources.clear();
+        }
+    }
+
+    /**
+     * Processes the file system events until the watch service is closed.
+     */
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watcher.take();
+                Set<Path> changed = new HashSet<>();
+                boolean overflow = false;
+                while (key != null) {
+                    Path dir = keys.get(key);
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            overflow = true;
+                        } else if (dir != null) {
+                            if (dir.equals(root)) {
+                                changed.add(dir.resolve((Path) event.context()));
+                            } else {
+                                changed.add(dir);
+                            }
+                        }
+                    }
+                    if (!key.reset()) {
+                        keys.remove(key);
+                    }
+                    key = watcher.poll(COALESCE_MILLIS, TimeUnit.MILLISECONDS);
+                }
+
+                if (overflow) {
+                    reload();
+                    for (String name : datasources.keySet()) {
+                        register(root.resolve(name));
+                    }
+                } else {
+                    changed.forEach(this::update);
+                }
+                LOGGER.log(Level.FINE, "Directory model updated: {0}", changed);
+                events.fire(DIRECTORY_MESSAGE);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException ex) {
+            LOGGER.info("Directory watch service closed");
+        }
+    }
+
+    /**
+     * Updates the datasource directory in the model.
+     *
+     * @param dir the datasource directory.
+     */
+    private void update(Path dir) {
+        String name = dir.getFileName().toString();
+        if (Files.isDirectory(dir)) {
+            register(dir);
+            datasources.put(name, DirectoryDataImportExecutorService.loadDatasourceDirectoryData(dir));
+        } else {
+            datasources.remove(name);
+        }
+    }
+
+    /**
+     * Registers the directory in the watch service.
+     *
+     * @param dir the directory.
+     */
+    private void register(Path dir) {
+        try {
+            WatchKey key = dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+            keys.put(key, dir);
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, "Error register the directory {0} in the watch service: {1}", new Object[]{dir, ex.getMessage()});
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.web.service;
+
+/**
+ * The invalid import job exception. The checked exception is the application
+ * exception of the EJB and the container delivers it to the client without
+ * the {@code EJBException} wrapper.
+ *
+ * @author Andrej_Petras
+ */
+public class ImportJobException extends Exception {
+
+    private static final long serialVersionUID = -6108364274928341539L;
+
+    /**
+     * The default constructor.
+     *
+     * @param message the error message.
+     */
+    public ImportJobException(String message) {
+        super(message);
+    }
+}
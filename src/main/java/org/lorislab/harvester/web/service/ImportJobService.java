@@ -0,0 +1,366 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.web.service;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Singleton;
+import javax.enterprise.concurrent.ManagedThreadFactory;
+import javax.enterprise.event.Event;
+import javax.inject.Inject;
+import org.lorislab.harvester.util.DbUnitExecutorUtil;
+import org.lorislab.harvester.util.HarvesterProperties;
+import org.lorislab.harvester.web.events.OnCloseEvent;
+import org.lorislab.harvester.web.events.OnOpenEvent;
+import org.lorislab.harvester.web.events.UpdateViewEvent;
+import org.lorislab.harvester.web.model.ImportJob;
+import org.lorislab.harvester.web.model.ImportJobStatus;
+
+/**
+ * The import job service. The submitted jobs are queued by the priority and
+ * the submit order. The job is started as soon as none of its JNDI and
+ * datasource directories is used by the running job or reserved by the
+ * queued job with the higher priority, so the jobs for the different JNDI run
+ * concurrently. The job imports the directories resolved at the submit. The
+ * status change of the job is pushed to the clients with the
+ * {@value #JOBS_MESSAGE} message. The last {@value #HISTORY_SIZE} jobs are
+ * kept for the status queries.
+ *
+ * @author Andrej_Petras
+ */
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class ImportJobService {
+
+    private static final Logger LOGGER = Logger.getLogger(ImportJobService.class.getName());
+
+    /**
+     * The update view message for the changed jobs.
+     */
+    public static final String JOBS_MESSAGE = "jobs";
+
+    /**
+     * The maximum number of the kept jobs.
+     */
+    private static final int HISTORY_SIZE = 100;
+
+    /**
+     * The order of the queued jobs.
+     */
+    private static final Comparator<ImportJob> ORDER = Comparator.comparingInt(ImportJob::getPriority).reversed()
+            .thenComparingLong(ImportJob::getId);
+
+    @Inject
+    private DirectoryDataImportExecutorService service;
+
+    @Inject
+    @OnOpenEvent
+    private Event<String> openEvents;
+
+    @Inject
+    @OnCloseEvent
+    private Event<String> closeEvents;
+
+    @Inject
+    @UpdateViewEvent
+    private Event<String> updateEvents;
+
+    @Resource
+    private ManagedThreadFactory threadFactory;
+
+    /**
+     * The executor of the jobs. The job waits for its directory imports in
+     * the managed executor service, therefore the jobs run in their own
+     * threads and never occupy the threads of the directory imports.
+     */
+    private ExecutorService executor;
+
+    private final PriorityQueue<ImportJob> queue = new PriorityQueue<>(ORDER);
+
+    private final Map<Long, Future<?>> running = new HashMap<>();
+
+    private final Map<Long, ImportJob> jobs = new LinkedHashMap<>();
+
+    private final Map<Long, List<Path>> entries = new HashMap<>();
+
+    private long sequence;
+
+    /**
+     * Creates the executor of the jobs.
+     */
+    @PostConstruct
+    public void init() {
+        executor = Executors.newCachedThreadPool(threadFactory);
+    }
+
+    /**
+     * Interrupts the running jobs.
+     */
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Submits the import job.
+     *
+     * @param operation the operation.
+     * @param directories the datasource directory names or empty list for
+     * all directories.
+     * @param priority the priority, the higher priority is started first.
+     * @return the queued job.
+     * @throws ImportJobException if the operation or the directory does not
+     * exists.
+     * @throws IOException if the method fails.
+     */
+    public ImportJob submit(String operation, List<String> directories, int priority) throws ImportJobException, IOException {
+        if (!DbUnitExecutorUtil.isOperation(operation)) {
+            throw new ImportJobException("The operation: " + operation + " is not registred");
+        }
+        List<Path> paths = resolve(directories);
+        ImportJob job = new ImportJob();
+        job.setOperation(operation);
+        job.setPriority(priority);
+        for (Path entry : paths) {
+            job.getDirectories().add(entry.getFileName().toString());
+            String jndi = HarvesterProperties.getHarvesterProperties(entry).getProperty(HarvesterProperties.JNDI);
+            if (jndi != null) {
+                job.getJndis().add(jndi);
+            }
+        }
+        synchronized (this) {
+            sequence++;
+            job.setId(sequence);
+            job.setSubmitted(new Date());
+            jobs.put(job.getId(), job);
+            entries.put(job.getId(), paths);
+            queue.add(job);
+            trimHistory();
+            schedule();
+        }
+        LOGGER.log(Level.INFO, "Submit the job {0} operation: {1} directories: {2}", new Object[]{job.getId(), operation, job.getDirectories()});
+        updateEvents.fire(JOBS_MESSAGE);
+        return job;
+    }
+
+    /**
+     * Cancels the job. The queued job is removed from the queue, the running
+     * job is interrupted and the remaining directories are skipped.
+     *
+     * @param id the job id.
+     * @return {@code true} if the job was queued or running.
+     */
+    public boolean cancel(long id) {
+        boolean result = false;
+        synchronized (this) {
+            ImportJob job = jobs.get(id);
+            if (job == null) {
+                return false;
+            }
+            if (queue.remove(job)) {
+                entries.remove(id);
+                job.setCancelled(true);
+                job.setStatus(ImportJobStatus.CANCELLED);
+                job.setFinished(new Date());
+                schedule();
+                result = true;
+            } else {
+                Future<?> future = running.get(id);
+                if (future != null) {
+                    job.setCancelled(true);
+                    future.cancel(true);
+                    result = true;
+                }
+            }
+        }
+        if (result) {
+            updateEvents.fire(JOBS_MESSAGE);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the job.
+     *
+     * @param id the job id.
+     * @return the job or {@code null} if the job does not exists.
+     */
+    public synchronized ImportJob getJob(long id) {
+        return jobs.get(id);
+    }
+
+    /**
+     * Gets the kept jobs in the submit order.
+     *
+     * @return the kept jobs.
+     */
+    public synchronized List<ImportJob> getJobs() {
+        return new ArrayList<>(jobs.values());
+    }
+
+    /**
+     * Returns {@code true} if any job is queued or running.
+     *
+     * @return {@code true} if any job is queued or running.
+     */
+    public synchronized boolean isRunning() {
+        return !queue.isEmpty() || !running.isEmpty();
+    }
+
+    /**
+     * Starts the queued jobs whose JNDI and directories are free.
+     */
+    private void schedule() {
+        Set<String> locked = new HashSet<>();
+        for (Long id : running.keySet()) {
+            locked.addAll(getLocks(jobs.get(id)));
+        }
+        List<ImportJob> ordered = new ArrayList<>(queue);
+        ordered.sort(ORDER);
+        for (ImportJob job : ordered) {
+            Set<String> locks = getLocks(job);
+            if (Collections.disjoint(locked, locks)) {
+                queue.remove(job);
+                job.setStatus(ImportJobStatus.RUNNING);
+                job.setStarted(new Date());
+                List<Path> paths = entries.remove(job.getId());
+                running.put(job.getId(), executor.submit(() -> run(job, paths)));
+            }
+            // the queued job reserves its JNDI and directories for the lower priority jobs
+            locked.addAll(locks);
+        }
+    }
+
+    /**
+     * Gets the locks of the job. The job locks its JNDI and its datasource
+     * directories, the job without the JNDI is serialized by the
+     * directories.
+     *
+     * @param job the job.
+     * @return the locks of the job.
+     */
+    private static Set<String> getLocks(ImportJob job) {
+        Set<String> result = new HashSet<>();
+        job.getJndis().forEach(item -> result.add("jndi:" + item));
+        job.getDirectories().forEach(item -> result.add("directory:" + item));
+        return result;
+    }
+
+    /**
+     * Runs the job.
+     *
+     * @param job the job.
+     * @param paths the datasource directories resolved at the submit.
+     */
+    private void run(ImportJob job, List<Path> paths) {
+        LOGGER.log(Level.INFO, "Start the job {0}", job.getId());
+        openEvents.fire("Start");
+        updateEvents.fire(JOBS_MESSAGE);
+        ImportJobStatus status = ImportJobStatus.FINISHED;
+        try {
+            service.executeJob(job, paths);
+            if (job.isCancelled()) {
+                status = ImportJobStatus.CANCELLED;
+            }
+        } catch (InterruptedException ex) {
+            status = ImportJobStatus.CANCELLED;
+            Thread.currentThread().interrupt();
+        } catch (Exception ex) {
+            LOGGER.log(Level.SEVERE, "Error execute the job " + job.getId(), ex);
+            status = job.isCancelled() ? ImportJobStatus.CANCELLED : ImportJobStatus.FAILED;
+            job.setMessage(ex.toString());
+        }
+        synchronized (this) {
+            job.setStatus(status);
+            job.setFinished(new Date());
+            running.remove(job.getId());
+            schedule();
+        }
+        closeEvents.fire("Close");
+        updateEvents.fire(JOBS_MESSAGE);
+        LOGGER.log(Level.INFO, "Finished the job {0} status: {1}", new Object[]{job.getId(), status});
+    }
+
+    /**
+     * Removes the oldest finished jobs over the history size.
+     */
+    private void trimHistory() {
+        Iterator<ImportJob> iter = jobs.values().iterator();
+        while (jobs.size() > HISTORY_SIZE && iter.hasNext()) {
+            ImportJob job = iter.next();
+            if (job.getFinished() != null) {
+                iter.remove();
+            }
+        }
+    }
+
+    /**
+     * Resolves the datasource directories.
+     *
+     * @param directories the datasource directory names or empty list for
+     * all directories.
+     * @return the datasource directories.
+     * @throws ImportJobException if the directory does not exists.
+     * @throws IOException if the method fails.
+     */
+    private static List<Path> resolve(List<String> directories) throws ImportJobException, IOException {
+        Path root = Paths.get(HarvesterProperties.getRootDirectory());
+        List<Path> result = new ArrayList<>();
+        if (directories == null || directories.isEmpty()) {
+            if (Files.exists(root)) {
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(root, Files::isDirectory)) {
+                    stream.forEach(result::add);
+                }
+            } else {
+                LOGGER.log(Level.WARNING, "The harvester root directory does not exists. Directory: {0}", root.toString());
+            }
+        } else {
+            for (String name : directories) {
+                Path entry = root.resolve(name).normalize();
+                if (!entry.startsWith(root.normalize()) || !Files.isDirectory(entry)) {
+                    throw new ImportJobException("The datasource directory: " + name + " does not exists");
+                }
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.web.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.enterprise.context.ApplicationScoped;
+import org.lorislab.harvester.web.model.ImportLogItem;
+
+/**
+ * The import log store. The store keeps the last {@value #CAPACITY} import
+ * log items of all runs in the ring buffer. Every item gets the increasing
+ * sequence id which is used as the cursor for the paging.
+ *
+ * @author Andrej_Petras
+ */
+@ApplicationScoped
+public class ImportLogStore {
+
+    /**
+     * The maximum number of the stored items.
+     */
+    public static final int CAPACITY = 1000;
+
+    /**
+     * The ring buffer.
+     */
+    private final ImportLogItem[] items = new ImportLogItem[CAPACITY];
+
+    /**
+     * The id of the last item.
+     */
+    private long last;
+
+    /**
+     * Adds the item and assigns the sequence id to the item.
+     *
+     * @param item the import log item.
+     * @return the id of the item.
+     */
+    public synchronized long add(ImportLogItem item) {
+        last++;
+        item.setId(last);
+        items[index(last)] = item;
+        return last;
+    }
+
+    /**
+     * Gets the id of the last item.
+     *
+     * @return the id of the last item or {@code 0} if the store is empty.
+     */
+    public synchronized long getLastId() {
+        return last;
+    }
+
+    /**
+     * Gets the items after the cursor in the ascending order. The items which
+     * were already overwritten in the ring buffer are skipped.
+     *
+     * @param after the cursor, the id of the last known item.
+     * @param limit the maximum number of the items.
+     * @return the items after the cursor.
+     */
+    public synchronized List<ImportLogItem> getAfter(long after, int limit) {
+        long from = Math.max(Math.max(after, 0) + 1, first());
+        long to = Math.min(last, from + limit - 1);
+        return range(from, to);
+    }
+
+    /**
+     * Gets the items before the cursor in the ascending order.
+     *
+     * @param before the cursor, the id of the first known item.
+     * @param limit the maximum number of the items.
+     * @return the items before the cursor.
+     */
+    public synchronized List<ImportLogItem> getBefore(long before, int limit) {
+        long to = Math.min(before - 1, last);
+        long from = Math.max(first(), to - limit + 1);
+        return range(from, to);
+    }
+
+    /**
+     * Gets the last items in the ascending order.
+     *
+     * @param limit the maximum number of the items.
+     * @return the last items.
+     */
+    public List<ImportLogItem> getLast(int limit) {
+        return getBefore(Long.MAX_VALUE, limit);
+    }
+
+    /**
+     * Gets the id of the oldest stored item.
+     *
+     * @return the id of the oldest stored item.
+     */
+    private long first() {
+        return Math.max(1, last - CAPACITY + 1);
+    }
+
+    /**
+     * Copies the items of the id range.
+     *
+     * @param from the first id.
+     * @param to the last id.
+     * @return the items of the id range.
+     */
+    private List<ImportLogItem> range(long from, long to) {
+        List<ImportLogItem> result = new ArrayList<>();
+        for (long id = from; id <= to; id++) {
+            result.add(items[index(id)]);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the index of the id in the ring buffer.
+     *
+     * @param id the item id.
+     * @return the index in the ring buffer.
+     */
+    private static int index(long id) {
+        return (int) (id % CAPACITY);
+    }
+}
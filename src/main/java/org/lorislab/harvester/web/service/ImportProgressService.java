@@ -0,0 +1,135 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.web.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.enterprise.concurrent.ManagedScheduledExecutorService;
+import javax.enterprise.event.Event;
+import javax.inject.Inject;
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObjectBuilder;
+import org.lorislab.harvester.dataset.TableProgress;
+import org.lorislab.harvester.util.ImportProgress;
+import org.lorislab.harvester.web.events.UpdateViewEvent;
+
+/**
+ * The import progress service. The service samples the progress of the
+ * running imports every {@value #INTERVAL_MILLIS} milliseconds and pushes it
+ * to the clients with the {@value #PROGRESS_MESSAGE} message followed by the
+ * separator {@code |} and the JSON array of the tables. The empty array is
+ * sent once after the last import is finished.
+ *
+ * @author Andrej_Petras
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class ImportProgressService {
+
+    private static final Logger LOGGER = Logger.getLogger(ImportProgressService.class.getName());
+
+    /**
+     * The update view message for the import progress.
+     */
+    public static final String PROGRESS_MESSAGE = "progress";
+
+    /**
+     * The sample interval.
+     */
+    private static final long INTERVAL_MILLIS = 1000;
+
+    @Inject
+    @UpdateViewEvent
+    private Event<String> events;
+
+    @Resource
+    private ManagedScheduledExecutorService scheduler;
+
+    private ScheduledFuture<?> future;
+
+    private boolean running;
+
+    @PostConstruct
+    public void init() {
+        future = scheduler.scheduleAtFixedRate(this::sample, INTERVAL_MILLIS, INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+
+    /**
+     * Converts the progress to the compact JSON array. The item contains the
+     * directory {@code d}, the table {@code t}, the read rows {@code r} and,
+     * if it is known, the estimated total rows {@code n} and the estimated
+     * time to the end of the table in seconds {@code e}.
+     *
+     * @param progress the progress of the tables by the directory.
+     * @return the JSON array.
+     */
+    private static String toJson(Map<String, List<TableProgress>> progress) {
+        JsonArrayBuilder result = Json.createArrayBuilder();
+        progress.forEach((directory, tables) -> {
+            for (TableProgress table : tables) {
+                JsonObjectBuilder item = Json.createObjectBuilder()
+                        .add("d", directory)
+                        .add("t", table.getTable())
+                        .add("r", table.getRows());
+                if (table.getTotal() >= 0) {
+                    item.add("n", table.getTotal());
+                    item.add("e", table.getEtaSeconds());
+                }
+                result.add(item);
+            }
+        });
+        return result.build().toString();
+    }
+
+    /**
+     * Samples the progress of the running imports.
+     */
+    private void sample() {
+        try {
+            if (ImportProgress.isEmpty()) {
+                if (!running) {
+                    return;
+                }
+                running = false;
+            } else {
+                running = true;
+            }
+            events.fire(PROGRESS_MESSAGE + "|" + toJson(ImportProgress.getProgress()));
+        } catch (Exception ex) {
+            LOGGER.log(Level.SEVERE, "Error sample the import progress", ex);
+        }
+    }
+}
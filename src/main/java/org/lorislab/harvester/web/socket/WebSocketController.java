@@ -16,17 +16,37 @@
 package org.lorislab.harvester.web.socket;
 
 import java.io.IOException;
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.enterprise.concurrent.ManagedScheduledExecutorService;
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.event.Observes;
+import javax.websocket.CloseReason;
+import javax.websocket.SendHandler;
+import javax.websocket.SendResult;
 import javax.websocket.Session;
 import org.lorislab.harvester.web.events.UpdateViewEvent;
 
 /**
+ * The web socket controller. The messages are sent asynchronously, every
+ * session has a bounded outbound queue and only one message in flight. The
+ * message equal to the already queued message is dropped and the message
+ * with the payload ({@code key|payload}) replaces the queued message with the
+ * same key, so only the latest payload is sent. The session which
+ * overflows the queue, does not complete the send in
+ * {@value #SEND_TIMEOUT} seconds or fails to send the message is removed and
+ * closed in the managed executor. The send timeout is checked every
+ * {@value #CHECK_INTERVAL} seconds.
  *
  * @author Andrej_Petras
  */
@@ -35,28 +55,235 @@ public class WebSocketController {
 
     private static final Logger LOGGER = Logger.getLogger(WebSocketController.class.getName());
 
-    private final Set<Session> sessions = Collections.synchronizedSet(new HashSet<>());
+    /**
+     * The maximum number of the queued messages per session.
+     */
+    private static final int QUEUE_SIZE = 32;
+
+    /**
+     * The send timeout in seconds.
+     */
+    private static final long SEND_TIMEOUT = 30;
+
+    /**
+     * The interval of the send timeout check in seconds.
+     */
+    private static final long CHECK_INTERVAL = 5;
+
+    /**
+     * The separator of the message key and the payload.
+     */
+    private static final char PAYLOAD_SEPARATOR = '|';
+
+    private final Map<String, Outbox> sessions = new ConcurrentHashMap<>();
+
+    @Resource
+    private ManagedScheduledExecutorService scheduler;
+
+    private ScheduledFuture<?> future;
+
+    @PostConstruct
+    public void init() {
+        future = scheduler.scheduleWithFixedDelay(this::checkTimeouts, CHECK_INTERVAL, CHECK_INTERVAL, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
 
     public void add(Session session) {
         LOGGER.log(Level.INFO, "Add session {0}", session.getId());
-        sessions.add(session);
+        sessions.put(session.getId(), new Outbox(session));
     }
 
     public void remove(Session session) {
         LOGGER.log(Level.INFO, "Close session {0}", session.getId());
-        sessions.remove(session);
+        sessions.remove(session.getId());
     }
 
     public void sendMessage(@Observes @UpdateViewEvent String message) {
-        sessions.forEach((item) -> sendMessage(item, message));
+        sessions.values().forEach((item) -> item.offer(message));
+    }
+
+    /**
+     * Evicts the sessions with the message in flight longer than the send
+     * timeout.
+     */
+    private void checkTimeouts() {
+        long now = System.nanoTime();
+        sessions.values().stream()
+                .filter(item -> item.isTimedOut(now))
+                .forEach(item -> evict(item, "send timeout"));
     }
 
-    private void sendMessage(Session session, String message) {
+    /**
+     * Removes the session and closes it in the managed executor. The close
+     * could block on the network, so it does not run in the calling thread.
+     *
+     * @param outbox the session outbox.
+     * @param reason the reason.
+     */
+    private void evict(Outbox outbox, String reason) {
+        Session session = outbox.session;
+        if (!sessions.remove(session.getId(), outbox)) {
+            return;
+        }
+        LOGGER.log(Level.WARNING, "Evict session {0} reason: {1}", new Object[]{session.getId(), reason});
         try {
-            LOGGER.log(Level.FINEST, " {0} send update event {1}", new Object[]{session.getId(), message});
-            session.getBasicRemote().sendText(message);
-        } catch (IOException ex) {
-            Logger.getLogger(UpdateWebSocketServer.class.getName()).log(Level.SEVERE, null, ex);
+            scheduler.execute(() -> close(session, reason));
+        } catch (RejectedExecutionException ex) {
+            LOGGER.log(Level.FINEST, "Error close the session " + session.getId(), ex);
+        }
+    }
+
+    /**
+     * Closes the session.
+     *
+     * @param session the session.
+     * @param reason the reason.
+     */
+    private static void close(Session session, String reason) {
+        if (session.isOpen()) {
+            try {
+                session.close(new CloseReason(CloseReason.CloseCodes.TRY_AGAIN_LATER, reason));
+            } catch (IOException | IllegalStateException ex) {
+                LOGGER.log(Level.FINEST, "Error close the session " + session.getId(), ex);
+            }
+        }
+    }
+
+    /**
+     * The outbound queue of the session.
+     */
+    private class Outbox implements SendHandler {
+
+        /**
+         * The session.
+         */
+        private final Session session;
+
+        /**
+         * The queued messages.
+         */
+        private final Deque<String> queue = new ArrayDeque<>();
+
+        /**
+         * The start time of the message in flight or zero.
+         */
+        private long inFlight;
+
+        /**
+         * The default constructor.
+         *
+         * @param session the session.
+         */
+        Outbox(Session session) {
+            this.session = session;
+        }
+
+        /**
+         * Queues the message and starts the send if there is no message in
+         * flight. The method never blocks on the network.
+         *
+         * @param message the message.
+         */
+        void offer(String message) {
+            String reason = null;
+            synchronized (this) {
+                if (!session.isOpen()) {
+                    reason = "session closed";
+                } else if (isTimedOut(System.nanoTime())) {
+                    reason = "send timeout";
+                } else if (queue.contains(message)) {
+                    LOGGER.log(Level.FINEST, " {0} coalesce update event {1}", new Object[]{session.getId(), message});
+                    return;
+                } else if (replace(message)) {
+                    LOGGER.log(Level.FINEST, " {0} replace update event {1}", new Object[]{session.getId(), message});
+                } else if (queue.size() >= QUEUE_SIZE) {
+                    reason = "outbound queue full";
+                } else {
+                    queue.add(message);
+                }
+            }
+            if (reason != null) {
+                evict(this, reason);
+                return;
+            }
+            sendNext();
+        }
+
+        /**
+         * Returns {@code true} if the message in flight exceeded the send
+         * timeout.
+         *
+         * @param now the current time in nanoseconds.
+         * @return {@code true} if the message in flight exceeded the send
+         * timeout.
+         */
+        synchronized boolean isTimedOut(long now) {
+            return inFlight != 0 && now - inFlight > TimeUnit.SECONDS.toNanos(SEND_TIMEOUT);
+        }
+
+        /**
+         * Replaces the queued message with the same key.
+         *
+         * @param message the message.
+         * @return {@code true} if the queued message was replaced.
+         */
+        private boolean replace(String message) {
+            int index = message.indexOf(PAYLOAD_SEPARATOR);
+            if (index < 0) {
+                return false;
+            }
+            String key = message.substring(0, index + 1);
+            if (queue.removeIf(item -> item.startsWith(key))) {
+                queue.add(message);
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * {@inheritDoc }
+         */
+        @Override
+        public void onResult(SendResult result) {
+            synchronized (this) {
+                inFlight = 0;
+            }
+            if (!result.isOK()) {
+                LOGGER.log(Level.FINEST, "Error send the message to the session " + session.getId(), result.getException());
+                evict(this, "send failed");
+                return;
+            }
+            sendNext();
+        }
+
+        /**
+         * Sends the next queued message if there is no message in flight.
+         */
+        private void sendNext() {
+            String message;
+            synchronized (this) {
+                if (inFlight != 0 || queue.isEmpty()) {
+                    return;
+                }
+                message = queue.poll();
+                inFlight = System.nanoTime();
+            }
+            try {
+                LOGGER.log(Level.FINEST, " {0} send update event {1}", new Object[]{session.getId(), message});
+                session.getAsyncRemote().sendText(message, this);
+            } catch (IllegalStateException | IllegalArgumentException ex) {
+                synchronized (this) {
+                    inFlight = 0;
+                }
+                LOGGER.log(Level.FINEST, "Error send the message to the session " + session.getId(), ex);
+                evict(this, "send failed");
+            }
         }
     }
 }
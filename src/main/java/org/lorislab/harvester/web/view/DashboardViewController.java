@@ -17,21 +17,29 @@ package org.lorislab.harvester.web.view;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.logging.Level;
 import java.util.logging.Logger;
-import javax.annotation.PostConstruct;
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.event.Event;
 import javax.enterprise.event.Observes;
 import javax.inject.Inject;
 import javax.inject.Named;
+import org.lorislab.harvester.util.DatabaseMetaDataCache;
+import org.lorislab.harvester.util.DbUnitExecutorUtil;
 import org.lorislab.harvester.web.events.OnCloseEvent;
 import org.lorislab.harvester.web.events.OnOpenEvent;
 import org.lorislab.harvester.web.events.OnUpdateEvent;
 import org.lorislab.harvester.web.events.UpdateViewEvent;
+import org.lorislab.harvester.web.model.DatasourceDirectoryData;
 import org.lorislab.harvester.web.model.DirectoryData;
+import org.lorislab.harvester.web.model.ImportJob;
 import org.lorislab.harvester.web.model.ImportLogItem;
-import org.lorislab.harvester.web.service.DirectoryDataImportExecutorService;
+import org.lorislab.harvester.web.service.DirectoryWatchService;
+import org.lorislab.harvester.web.service.ImportJobService;
+import org.lorislab.harvester.web.service.ImportLogStore;
 
 /**
  *
@@ -44,54 +52,87 @@ public class DashboardViewController implements Serializable {
     private static final long serialVersionUID = -4169427096137734767L;
 
     private static final Logger LOGGER = Logger.getLogger(DashboardViewController.class.getName());
+
+    /**
+     * The number of the last import log items rendered in the dashboard.
+     */
+    private static final int LOG_PAGE_SIZE = 50;
         
     @Inject
     @UpdateViewEvent
     private Event<String> events;
     
     @Inject
-    private DirectoryDataImportExecutorService service;
+    private ImportJobService jobService;
 
-    private DirectoryData directory;
+    @Inject
+    private DirectoryWatchService watchService;
 
-    private boolean running;
-    
-    private List<ImportLogItem> logs;
+    @Inject
+    private ImportLogStore logStore;
 
     public List<ImportLogItem> getLogs() {
-        return logs;
+        return logStore.getLast(LOG_PAGE_SIZE);
     }
 
     public boolean isRunning() {
-        return running;
+        return jobService.isRunning();
     }
             
-    @PostConstruct
     public void reloadDirectory() {
-        try {
-            directory = null;
-            directory = service.getDirectoryData();
-        } catch (Exception ex) {
-            ex.printStackTrace();
-        }
+        watchService.reload();
     }
 
     public DirectoryData getDirectory() {
-        return directory;
+        return watchService.getDirectoryData();
+    }
+
+    public List<DatasourceDirectoryData> getDatasources() {
+        List<DatasourceDirectoryData> result = new ArrayList<>();
+        DirectoryData directory = getDirectory();
+        if (directory != null && directory.getDatasources() != null) {
+            result.addAll(directory.getDatasources());
+            result.sort(Comparator.comparing(DatasourceDirectoryData::getName));
+        }
+        return result;
+    }
+
+    public void invalidateMetadata(String jndi) {
+        DatabaseMetaDataCache.invalidate(jndi);
+    }
+
+    public void clearMetadata() {
+        DatabaseMetaDataCache.clear();
     }
     
-    public synchronized void startImportData() {
-        if (!running) {
-            LOGGER.info("###################### START ################### ");
-            running = true;
-            logs = new ArrayList<>();
-            service.executeOperation("insert");
-            LOGGER.info("###################### START ################### ");            
+    public void startImportData() {
+        startOperation("insert");
+    }
+
+    public void startCompileData() {
+        startOperation(DbUnitExecutorUtil.COMPILE);
+    }
+
+    public List<ImportJob> getJobs() {
+        List<ImportJob> result = jobService.getJobs();
+        Collections.reverse(result);
+        return result;
+    }
+
+    public void cancelJob(long id) {
+        jobService.cancel(id);
+    }
+
+    private void startOperation(String operation) {
+        try {
+            jobService.submit(operation, Collections.emptyList(), 0);
+        } catch (Exception ex) {
+            LOGGER.log(Level.SEVERE, "Error submit the job for the operation " + operation, ex);
         }
     }
     
     public void onUpdateEvent(@Observes @OnUpdateEvent ImportLogItem log) {
-        logs.add(log);
+        logStore.add(log);
         events.fire("logs");
     } 
     
@@ -102,7 +143,6 @@ public class DashboardViewController implements Serializable {
     
     public void onCloseEvent(@Observes @OnCloseEvent String message) {
         LOGGER.info("Close");
-        running = false;
         events.fire("close");
     }    
 }
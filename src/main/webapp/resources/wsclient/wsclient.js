@@ -2,7 +2,7 @@ var wsclient = {};
 if (!wsclient.client) {    
     wsclient.client = {        
         clients: {},
-        init: function (id, context, channel, update, message) {
+        init: function (id, context, channel, update, message, progress) {
             var tmp = this.clients[channel];
             if (!tmp) {
                 var p = 'ws://';
@@ -13,10 +13,41 @@ if (!wsclient.client) {
                 this.clients[channel] = tmp;
             }
             tmp.addEventListener('message', function (evt) {
-                if (message.split(',').indexOf(evt.data) > -1) {
+                if (progress && evt.data.indexOf('progress|') === 0) {
+                    wsclient.client.progress(progress, JSON.parse(evt.data.substring(9)));
+                } else if (message.split(',').indexOf(evt.data) > -1) {
                     jsf.ajax.request(document.getElementById(id), event, {render: update});
                 }
             });
+        },
+        progress: function (target, tables) {
+            var element = document.getElementById(target);
+            if (!element) {
+                return;
+            }
+            while (element.firstChild) {
+                element.removeChild(element.firstChild);
+            }
+            tables.forEach(function (item) {
+                var row = document.createElement('li');
+                row.className = 'list-group-item';
+                var text = item.d + ' / ' + item.t + ': ' + item.r;
+                if (item.n !== undefined) {
+                    text += ' of ~' + item.n + ' rows, ETA ' + item.e + ' s';
+                    var bar = document.createElement('div');
+                    bar.className = 'progress-bar';
+                    bar.style.width = (item.n > 0 ? Math.round(100 * item.r / item.n) : 100) + '%';
+                    var wrapper = document.createElement('div');
+                    wrapper.className = 'progress';
+                    wrapper.style.marginBottom = '0';
+                    wrapper.appendChild(bar);
+                    row.appendChild(document.createTextNode(text));
+                    row.appendChild(wrapper);
+                } else {
+                    row.appendChild(document.createTextNode(text + ' rows'));
+                }
+                element.appendChild(row);
+            });
         }
     };
 }
\ No newline at end of file
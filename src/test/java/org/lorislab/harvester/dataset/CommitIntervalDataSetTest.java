@@ -0,0 +1,128 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.dataset;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.lorislab.harvester.util.DbUnitExecutorUtil;
+import org.lorislab.harvester.util.HarvesterProperties;
+
+/**
+ * The commit interval data set test.
+ *
+ * @author Andrej_Petras
+ */
+public class CommitIntervalDataSetTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Connection connection;
+
+    private Path directory;
+
+    @Before
+    public void before() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:commit");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table PERSON (ID integer primary key, NAME varchar(5))");
+            statement.execute("create table ADDRESS (ID integer primary key, CITY varchar(5))");
+        }
+        directory = folder.newFolder("commit").toPath();
+        Files.write(directory.resolve("table-ordering.txt"), Arrays.asList("PERSON", "ADDRESS"), StandardCharsets.UTF_8);
+        Files.write(directory.resolve("PERSON.csv"), Arrays.asList("ID,NAME", "1,a", "2,b", "3,c", "4,d", "5,e"), StandardCharsets.UTF_8);
+        Files.write(directory.resolve("ADDRESS.csv"), Arrays.asList("ID,CITY", "1,x", "2,y"), StandardCharsets.UTF_8);
+    }
+
+    @After
+    public void after() throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop all objects");
+        }
+        connection.close();
+    }
+
+    @Test
+    public void testCommitRows() throws Exception {
+        for (String operation : Arrays.asList("insert", "fastInsert")) {
+            DbUnitExecutorUtil.execute(connection, operation, directory, properties(HarvesterProperties.COMMIT_ROWS, "2"));
+            Assert.assertEquals(Arrays.asList("1", "2", "3", "4", "5"), read("select ID from PERSON order by ID"));
+            Assert.assertEquals(Arrays.asList("1", "2"), read("select ID from ADDRESS order by ID"));
+            Assert.assertTrue(connection.getAutoCommit());
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("delete from ADDRESS");
+                statement.execute("delete from PERSON");
+            }
+        }
+    }
+
+    @Test
+    public void testRollbackAfterLastCommit() throws Exception {
+        Files.write(directory.resolve("PERSON.csv"), Arrays.asList("ID,NAME", "1,a", "2,b", "3,c", "4,too long", "5,e"), StandardCharsets.UTF_8);
+        try {
+            DbUnitExecutorUtil.execute(connection, "insert", directory, properties(HarvesterProperties.COMMIT_ROWS, "2"));
+            Assert.fail("Expected the failed operation");
+        } catch (Exception ex) {
+            Assert.assertTrue(ex.getMessage(), ex.getMessage().startsWith("The operation failed after 1 commits"));
+        }
+        Assert.assertEquals(Arrays.asList("1", "2"), read("select ID from PERSON order by ID"));
+        Assert.assertTrue(connection.getAutoCommit());
+    }
+
+    @Test
+    public void testCommitTables() throws Exception {
+        Files.write(directory.resolve("ADDRESS.csv"), Arrays.asList("ID,CITY", "1,x", "2,too long"), StandardCharsets.UTF_8);
+        try {
+            DbUnitExecutorUtil.execute(connection, "insert", directory, properties(HarvesterProperties.COMMIT_TABLES, "1"));
+            Assert.fail("Expected the failed operation");
+        } catch (Exception ex) {
+            Assert.assertTrue(ex.getMessage(), ex.getMessage().startsWith("The operation failed after 1 commits"));
+        }
+        Assert.assertEquals(Arrays.asList("1", "2", "3", "4", "5"), read("select ID from PERSON order by ID"));
+        Assert.assertTrue(read("select ID from ADDRESS order by ID").isEmpty());
+    }
+
+    private static Properties properties(String key, String value) {
+        Properties result = new Properties();
+        result.setProperty(key, value);
+        return result;
+    }
+
+    private List<String> read(String sql) throws Exception {
+        List<String> result = new ArrayList<>();
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            while (rs.next()) {
+                result.add(rs.getString(1));
+            }
+        }
+        return result;
+    }
+}
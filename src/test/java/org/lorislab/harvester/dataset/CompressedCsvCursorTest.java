@@ -0,0 +1,184 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.dataset;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.zip.GZIPOutputStream;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorOutputStream;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.lorislab.harvester.util.DbUnitExecutorUtil;
+
+/**
+ * The compressed CSV cursor test.
+ *
+ * @author Andrej_Petras
+ */
+public class CompressedCsvCursorTest {
+
+    private static final String PERSON = String.join("\n",
+            "ID,NAME,SALARY",
+            "1, a ,10.25",
+            "2,\"b, \\\"c\\\"\",null",
+            "3,\"multi\nline\",-1.5",
+            "");
+
+    private static final String ADDRESS = String.join("\n",
+            "ID,PERSON_ID,CITY",
+            "1,1,x",
+            "2,3,y",
+            "");
+
+    private static final List<String> EXPECTED_PERSON = Arrays.asList(
+            "1:a:10.25",
+            "2:b, \"c\":null",
+            "3:multi\nline:-1.50");
+
+    private static final List<String> EXPECTED_ADDRESS = Arrays.asList(
+            "1:1:x",
+            "2:3:y");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Connection connection;
+
+    private Path directory;
+
+    @Before
+    public void before() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:compressed");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table PERSON (ID integer primary key, NAME varchar(50), SALARY decimal(10,2))");
+            statement.execute("create table ADDRESS (ID integer primary key, PERSON_ID integer references PERSON(ID), CITY varchar(50))");
+        }
+        directory = folder.newFolder("compressed").toPath();
+        Files.write(directory.resolve("table-ordering.txt"), Arrays.asList("PERSON", "ADDRESS"), StandardCharsets.UTF_8);
+    }
+
+    @After
+    public void after() throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop all objects");
+        }
+        connection.close();
+    }
+
+    @Test
+    public void testGzip() throws Exception {
+        write(CompressedCsvCursor.GZIP_EXTENSION);
+        DbUnitExecutorUtil.execute(connection, "insert", directory, new Properties());
+        assertData();
+    }
+
+    @Test
+    public void testBzip2() throws Exception {
+        write(CompressedCsvCursor.BZIP2_EXTENSION);
+        DbUnitExecutorUtil.execute(connection, "insert", directory, new Properties());
+        assertData();
+    }
+
+    @Test
+    public void testLz4() throws Exception {
+        write(CompressedCsvCursor.LZ4_EXTENSION);
+        DbUnitExecutorUtil.execute(connection, "insert", directory, new Properties());
+        assertData();
+    }
+
+    @Test
+    public void testBulkFallback() throws Exception {
+        write(CompressedCsvCursor.GZIP_EXTENSION);
+        DbUnitExecutorUtil.execute(connection, "bulk", directory, new Properties());
+        assertData();
+    }
+
+    @Test
+    public void testCursor() throws Exception {
+        Path file = write(directory.resolve("PERSON.csv" + CompressedCsvCursor.BZIP2_EXTENSION), PERSON);
+        Assert.assertTrue(CompressedCsvCursor.isCompressed(file));
+        Assert.assertEquals(file, StreamingCsvDataSet.getTableFile(directory, "PERSON"));
+        List<String> names = new ArrayList<>();
+        try (CompressedCsvCursor cursor = new CompressedCsvCursor(file)) {
+            while (cursor.next()) {
+                names.add(cursor.getValue(1));
+            }
+            Assert.assertEquals(1.0, cursor.getProgress(), 0.0);
+        }
+        Assert.assertEquals(Arrays.asList("NAME", "a", "b, \"c\"", "multi\nline"), names);
+    }
+
+    private void write(String extension) throws Exception {
+        write(directory.resolve("PERSON.csv" + extension), PERSON);
+        write(directory.resolve("ADDRESS.csv" + extension), ADDRESS);
+    }
+
+    private static Path write(Path file, String content) throws Exception {
+        String name = file.getFileName().toString();
+        try (OutputStream out = compress(name, Files.newOutputStream(file))) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return file;
+    }
+
+    private static OutputStream compress(String name, OutputStream out) throws Exception {
+        if (name.endsWith(CompressedCsvCursor.GZIP_EXTENSION)) {
+            return new GZIPOutputStream(out);
+        }
+        if (name.endsWith(CompressedCsvCursor.BZIP2_EXTENSION)) {
+            return new BZip2CompressorOutputStream(out);
+        }
+        return new FramedLZ4CompressorOutputStream(out);
+    }
+
+    private void assertData() throws Exception {
+        Assert.assertEquals(EXPECTED_PERSON, read("select ID, NAME, SALARY from PERSON order by ID"));
+        Assert.assertEquals(EXPECTED_ADDRESS, read("select ID, PERSON_ID, CITY from ADDRESS order by ID"));
+    }
+
+    private List<String> read(String sql) throws Exception {
+        List<String> result = new ArrayList<>();
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            int count = rs.getMetaData().getColumnCount();
+            while (rs.next()) {
+                StringBuilder sb = new StringBuilder();
+                for (int i = 1; i <= count; i++) {
+                    if (i > 1) {
+                        sb.append(':');
+                    }
+                    sb.append(rs.getString(i));
+                }
+                result.add(sb.toString());
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.dataset;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * The memory mapped CSV cursor test.
+ *
+ * @author Andrej_Petras
+ */
+public class MappedCsvCursorTest {
+
+    private static final String CSV = "ID,NAME,CITY\r\n"
+            + "1, a ,\t x\u000b\f\n"
+            + "\n"
+            + "2,\" b \",\"c\\\"d\"\n"
+            + "3,  \"q\" tail,\"multi\nline\"\n"
+            + "4,\u00e4\u20ac\u3000, \u00a0\n"
+            + "5,,\"\"\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRecords() throws Exception {
+        List<List<String>> expected = new ArrayList<>();
+        expected.add(Arrays.asList("ID", "NAME", "CITY"));
+        expected.add(Arrays.asList("1", "a", "x"));
+        expected.add(Arrays.asList("2", " b ", "c\"d"));
+        expected.add(Arrays.asList("3", "q tail", "multi\nline"));
+        expected.add(Arrays.asList("4", "\u00e4\u20ac\u3000", "\u00a0"));
+        expected.add(Arrays.asList("5", "", ""));
+
+        Path file = folder.newFile("TEST.csv").toPath();
+        Files.write(file, CSV.getBytes(StandardCharsets.UTF_8));
+        try (CsvCursor cursor = new MappedCsvCursor(file)) {
+            Assert.assertEquals(expected, read(cursor));
+        }
+    }
+
+    @Test
+    public void testSameAsRecordReader() throws Exception {
+        Path file = folder.newFile("TEST.csv").toPath();
+        Files.write(file, CSV.getBytes(StandardCharsets.UTF_8));
+        List<List<String>> mapped;
+        try (CsvCursor cursor = new MappedCsvCursor(file)) {
+            mapped = read(cursor);
+        }
+        try (CsvCursor cursor = new CsvRecordReader(new StringReader(CSV))) {
+            Assert.assertEquals(read(cursor), mapped);
+        }
+    }
+
+    private static List<List<String>> read(CsvCursor cursor) throws Exception {
+        List<List<String>> result = new ArrayList<>();
+        while (cursor.next()) {
+            List<String> record = new ArrayList<>();
+            for (int i = 0; i < cursor.getColumnCount(); i++) {
+                record.add(cursor.getValue(i));
+            }
+            result.add(record);
+        }
+        return result;
+    }
+}
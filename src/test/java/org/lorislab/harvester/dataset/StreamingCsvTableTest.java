@@ -0,0 +1,132 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.dataset;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import org.dbunit.dataset.DataSetException;
+import org.dbunit.dataset.RowOutOfBoundsException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.lorislab.harvester.util.DbUnitExecutorUtil;
+
+/**
+ * The streaming CSV table test.
+ *
+ * @author Andrej_Petras
+ */
+public class StreamingCsvTableTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Connection connection;
+
+    private Path directory;
+
+    @Before
+    public void before() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:streaming");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table PERSON (ID integer primary key, NAME varchar(50))");
+            statement.execute("create table ADDRESS (ID integer primary key, PERSON_ID integer references PERSON(ID), CITY varchar(50))");
+        }
+        directory = folder.newFolder("streaming").toPath();
+        Files.write(directory.resolve("table-ordering.txt"), Arrays.asList("PERSON", "ADDRESS"), StandardCharsets.UTF_8);
+        Files.write(directory.resolve("PERSON.csv"), Arrays.asList("ID,NAME", "1,a", "2,\"b, \\\"c\\\"\"", "3,null"), StandardCharsets.UTF_8);
+        Files.write(directory.resolve("ADDRESS.csv"), Arrays.asList("ID,PERSON_ID,CITY", "1,1,x", "2,2,y"), StandardCharsets.UTF_8);
+    }
+
+    @After
+    public void after() throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop all objects");
+        }
+        connection.close();
+    }
+
+    @Test
+    public void testReadRows() throws Exception {
+        try (StreamingCsvTable table = new StreamingCsvTable("PERSON", directory.resolve("PERSON.csv"))) {
+            Assert.assertEquals(2, table.getTableMetaData().getColumns().length);
+            Assert.assertEquals("1", table.getValue(0, "ID"));
+            Assert.assertEquals("a", table.getValue(0, "NAME"));
+            Assert.assertEquals("b, \"c\"", table.getValue(1, "NAME"));
+            Assert.assertNull(table.getValue(2, "NAME"));
+            Assert.assertEquals(3, table.getRowsRead());
+            try {
+                table.getValue(3, "ID");
+                Assert.fail("Expected the end of the table");
+            } catch (RowOutOfBoundsException ex) {
+                // end of the table
+            }
+        }
+    }
+
+    @Test
+    public void testRowCountDoesNotMoveTheTable() throws Exception {
+        try (StreamingCsvTable table = new StreamingCsvTable("PERSON", directory.resolve("PERSON.csv"))) {
+            Assert.assertEquals("1", table.getValue(0, "ID"));
+            Assert.assertEquals(3, table.getRowCount());
+            Assert.assertEquals(1, table.getRowsRead());
+            Assert.assertEquals("2", table.getValue(1, "ID"));
+        }
+    }
+
+    @Test(expected = DataSetException.class)
+    public void testForwardOnly() throws Exception {
+        try (StreamingCsvTable table = new StreamingCsvTable("PERSON", directory.resolve("PERSON.csv"))) {
+            table.getValue(1, "ID");
+            table.getValue(0, "ID");
+        }
+    }
+
+    @Test
+    public void testInsertAndDelete() throws Exception {
+        DbUnitExecutorUtil.execute(connection, "insert", directory, new Properties());
+        Assert.assertEquals(Arrays.asList("1:a", "2:b, \"c\"", "3:null"), read("select ID, NAME from PERSON order by ID"));
+        Assert.assertEquals(Arrays.asList("1:x", "2:y"), read("select ID, CITY from ADDRESS order by ID"));
+
+        Files.write(directory.resolve("PERSON.csv"), Arrays.asList("ID,NAME", "2,b", "1,a"), StandardCharsets.UTF_8);
+        Files.write(directory.resolve("ADDRESS.csv"), Arrays.asList("ID,PERSON_ID,CITY", "2,2,y", "1,1,x"), StandardCharsets.UTF_8);
+        DbUnitExecutorUtil.execute(connection, "delete", directory, new Properties());
+        Assert.assertEquals(Arrays.asList("3:null"), read("select ID, NAME from PERSON order by ID"));
+        Assert.assertTrue(read("select ID, CITY from ADDRESS order by ID").isEmpty());
+    }
+
+    private List<String> read(String sql) throws Exception {
+        List<String> result = new ArrayList<>();
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            while (rs.next()) {
+                result.add(rs.getInt(1) + ":" + rs.getString(2));
+            }
+        }
+        return result;
+    }
+}
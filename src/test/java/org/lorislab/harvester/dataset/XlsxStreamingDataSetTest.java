@@ -0,0 +1,154 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.dataset;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.lorislab.harvester.util.DbUnitExecutorUtil;
+
+/**
+ * The XLSX streaming data set test.
+ *
+ * @author Andrej_Petras
+ */
+public class XlsxStreamingDataSetTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Connection connection;
+
+    private Path directory;
+
+    @Before
+    public void before() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:xlsx");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table PERSON (ID integer primary key, NAME varchar(50), BORN timestamp, SALARY decimal(10,2), ACTIVE boolean)");
+            statement.execute("create table ADDRESS (ID integer primary key, PERSON_ID integer references PERSON(ID), CITY varchar(50))");
+        }
+        directory = folder.newFolder("xlsx").toPath();
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            CellStyle date = workbook.createCellStyle();
+            date.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd hh:mm:ss"));
+
+            Sheet person = workbook.createSheet("PERSON");
+            header(person, "ID", "NAME", "BORN", "SALARY", "ACTIVE");
+            Row row = person.createRow(1);
+            row.createCell(0).setCellValue(1);
+            row.createCell(1).setCellValue(" a ");
+            row.createCell(2).setCellValue(Timestamp.valueOf("2015-03-01 10:20:30"));
+            row.getCell(2).setCellStyle(date);
+            row.createCell(3).setCellValue(10.25);
+            row.createCell(4).setCellValue(true);
+            row = person.createRow(2);
+            row.createCell(0).setCellValue(2);
+            row.createCell(1).setCellValue("b");
+            row.createCell(4).setCellValue(false);
+
+            Sheet address = workbook.createSheet("ADDRESS");
+            header(address, "ID", "PERSON_ID", "CITY");
+            row = address.createRow(1);
+            row.createCell(0).setCellValue(1);
+            row.createCell(1).setCellValue(2);
+            row.createCell(2).setCellValue("c");
+
+            try (OutputStream out = Files.newOutputStream(directory.resolve("data.xlsx"))) {
+                workbook.write(out);
+            }
+        }
+    }
+
+    @After
+    public void after() throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop all objects");
+        }
+        connection.close();
+    }
+
+    @Test
+    public void testInsert() throws Exception {
+        DbUnitExecutorUtil.execute(connection, "insert", directory, new Properties());
+        Assert.assertEquals(Arrays.asList(
+                "1: a :2015-03-01 10:20:30:10.25:TRUE",
+                "2:b:null:null:FALSE"),
+                read("select ID, NAME, BORN, SALARY, ACTIVE from PERSON order by ID"));
+        Assert.assertEquals(Arrays.asList("1:2:c"),
+                read("select ID, PERSON_ID, CITY from ADDRESS order by ID"));
+    }
+
+    @Test
+    public void testSheetWithoutHeader() throws Exception {
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            workbook.createSheet("EMPTY");
+            try (OutputStream out = Files.newOutputStream(directory.resolve("empty.xlsx"))) {
+                workbook.write(out);
+            }
+        }
+        try {
+            DbUnitExecutorUtil.execute(connection, "insert", directory, new Properties());
+            Assert.fail("The sheet without the header row was imported");
+        } catch (Exception ex) {
+            // expected
+        }
+    }
+
+    private static void header(Sheet sheet, String... names) {
+        Row row = sheet.createRow(0);
+        for (int i = 0; i < names.length; i++) {
+            row.createCell(i).setCellValue(names[i]);
+        }
+    }
+
+    private List<String> read(String sql) throws Exception {
+        List<String> result = new ArrayList<>();
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            int count = rs.getMetaData().getColumnCount();
+            while (rs.next()) {
+                StringBuilder sb = new StringBuilder();
+                for (int i = 1; i <= count; i++) {
+                    if (i > 1) {
+                        sb.append(':');
+                    }
+                    sb.append(rs.getString(i));
+                }
+                result.add(sb.toString());
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.operation;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.lorislab.harvester.util.DbUnitExecutorUtil;
+
+/**
+ * The bulk load operation test.
+ *
+ * @author Andrej_Petras
+ */
+public class BulkLoadOperationTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Connection connection;
+
+    private Path directory;
+
+    @Before
+    public void before() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:bulk");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table PERSON (ID integer primary key, NAME varchar(50), BORN timestamp, SALARY decimal(10,2), ACTIVE boolean)");
+        }
+        directory = folder.newFolder("bulk").toPath();
+        Files.write(directory.resolve("table-ordering.txt"), Arrays.asList("PERSON"), StandardCharsets.UTF_8);
+        Files.write(directory.resolve("PERSON.csv"), Arrays.asList(
+                "ID,NAME,BORN,SALARY,ACTIVE",
+                "1, a ,2015-03-01 10:20:30.5,10.25,true",
+                "",
+                "2,\"b, \\\"c\\\"\",2015-03-02 00:00:00.0,-1.5,false",
+                "3,\" d \",null,null,null",
+                "4,\"multi\nline\",2015-12-31 23:59:59.0,0,true"), StandardCharsets.UTF_8);
+    }
+
+    @After
+    public void after() throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop all objects");
+        }
+        connection.close();
+    }
+
+    @Test
+    public void testBulkSameAsInsert() throws Exception {
+        DbUnitExecutorUtil.execute(connection, "insert", directory, new Properties());
+        List<String> expected = read();
+        Assert.assertEquals(4, expected.size());
+        Assert.assertEquals("2:b, \"c\":2015-03-02 00:00:00.0:-1.50:false", expected.get(1));
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("delete from PERSON");
+        }
+
+        DbUnitExecutorUtil.execute(connection, "bulk", directory, new Properties());
+        Assert.assertEquals(expected, read());
+    }
+
+    private List<String> read() throws Exception {
+        List<String> result = new ArrayList<>();
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery("select ID, NAME, BORN, SALARY, ACTIVE from PERSON order by ID")) {
+            while (rs.next()) {
+                result.add(rs.getInt(1) + ":" + rs.getString(2) + ":" + rs.getTimestamp(3) + ":" + rs.getBigDecimal(4) + ":" + rs.getObject(5));
+            }
+        }
+        return result;
+    }
+}
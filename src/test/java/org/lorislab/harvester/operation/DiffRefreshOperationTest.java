@@ -0,0 +1,114 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.operation;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.lorislab.harvester.util.DbUnitExecutorUtil;
+import org.lorislab.harvester.util.HarvesterProperties;
+
+/**
+ * The diff refresh operation test.
+ *
+ * @author Andrej_Petras
+ */
+public class DiffRefreshOperationTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Connection connection;
+
+    private Path directory;
+
+    @Before
+    public void before() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:diff");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table PERSON (ID integer primary key, NAME varchar(50))");
+            statement.execute("create table ADDRESS (ID integer primary key, PERSON_ID integer references PERSON(ID), CITY varchar(50))");
+            statement.execute("insert into PERSON values (1, 'a'), (2, 'b'), (3, 'c'), (4, 'd'), (5, 'e'), (6, 'f')");
+            statement.execute("insert into ADDRESS values (1, 1, 'x'), (2, 2, 'y')");
+        }
+        directory = folder.newFolder("diff").toPath();
+        Files.write(directory.resolve("table-ordering.txt"), Arrays.asList("PERSON", "ADDRESS"), StandardCharsets.UTF_8);
+        Files.write(directory.resolve("PERSON.csv"), Arrays.asList("ID,NAME", "1,a", "3,changed", "4,d", "5,e", "6,f", "7,new"), StandardCharsets.UTF_8);
+        Files.write(directory.resolve("ADDRESS.csv"), Arrays.asList("ID,PERSON_ID,CITY", "1,1,x"), StandardCharsets.UTF_8);
+    }
+
+    @After
+    public void after() throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop all objects");
+        }
+        connection.close();
+    }
+
+    @Test
+    public void testDiffRefresh() throws Exception {
+        DbUnitExecutorUtil.execute(connection, "diffRefresh", directory, new Properties());
+        assertRows();
+    }
+
+    @Test
+    public void testDiffRefreshCommitRows() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty(HarvesterProperties.COMMIT_ROWS, "2");
+        properties.setProperty(HarvesterProperties.BATCH_SIZE, "2");
+        DbUnitExecutorUtil.execute(connection, "diffRefresh", directory, properties);
+        assertRows();
+    }
+
+    private void assertRows() throws Exception {
+        Map<Integer, String> expected = new LinkedHashMap<>();
+        expected.put(1, "a");
+        expected.put(3, "changed");
+        expected.put(4, "d");
+        expected.put(5, "e");
+        expected.put(6, "f");
+        expected.put(7, "new");
+        Assert.assertEquals(expected, read("select ID, NAME from PERSON order by ID"));
+
+        Map<Integer, String> addresses = new LinkedHashMap<>();
+        addresses.put(1, "x");
+        Assert.assertEquals(addresses, read("select ID, CITY from ADDRESS order by ID"));
+    }
+
+    private Map<Integer, String> read(String sql) throws Exception {
+        Map<Integer, String> result = new LinkedHashMap<>();
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            while (rs.next()) {
+                result.put(rs.getInt(1), rs.getString(2));
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.operation;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.lorislab.harvester.util.ChecksumManifest;
+import org.lorislab.harvester.util.DbUnitExecutorUtil;
+
+/**
+ * The H2 database snapshot test.
+ *
+ * @author Andrej_Petras
+ */
+public class H2DatabaseSnapshotTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Connection connection;
+
+    private Path directory;
+
+    @Before
+    public void before() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:restore");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table PERSON (ID integer primary key, NAME varchar(50))");
+            statement.execute("create table ADDRESS (ID integer primary key, PERSON_ID integer references PERSON(ID), CITY varchar(50))");
+            statement.execute("create table OTHER (ID integer primary key)");
+            statement.execute("insert into OTHER values (1)");
+        }
+        directory = folder.newFolder("restore").toPath();
+        Files.write(directory.resolve("table-ordering.txt"), Arrays.asList("PERSON", "ADDRESS"), StandardCharsets.UTF_8);
+        Files.write(directory.resolve("PERSON.csv"), Arrays.asList("ID,NAME", "1,a", "2,b"), StandardCharsets.UTF_8);
+        Files.write(directory.resolve("ADDRESS.csv"), Arrays.asList("ID,PERSON_ID,CITY", "1,1,x"), StandardCharsets.UTF_8);
+    }
+
+    @After
+    public void after() throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop all objects");
+        }
+        connection.close();
+    }
+
+    @Test
+    public void testSnapshotAndRestore() throws Exception {
+        DbUnitExecutorUtil.execute(connection, DbUnitExecutorUtil.INCREMENTAL, directory, new Properties());
+        Path manifest = directory.resolve(ChecksumManifest.MANIFEST_FILE_NAME);
+        byte[] manifestContent = Files.readAllBytes(manifest);
+        DbUnitExecutorUtil.execute(connection, DbUnitExecutorUtil.SNAPSHOT, directory, new Properties());
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("delete from ADDRESS");
+            statement.execute("update PERSON set NAME = 'changed'");
+            statement.execute("insert into PERSON values (3, 'c')");
+            statement.execute("insert into OTHER values (2)");
+        }
+        Files.write(directory.resolve("PERSON.csv"), Arrays.asList("ID,NAME", "1,a", "2,b", "3,c"), StandardCharsets.UTF_8);
+        DbUnitExecutorUtil.execute(connection, DbUnitExecutorUtil.INCREMENTAL, directory, new Properties());
+
+        DbUnitExecutorUtil.execute(connection, DbUnitExecutorUtil.RESTORE, directory, new Properties());
+        Assert.assertEquals(Arrays.asList("1:a", "2:b"), read("select ID, NAME from PERSON order by ID"));
+        Assert.assertEquals(Arrays.asList("1:x"), read("select ID, CITY from ADDRESS order by ID"));
+        Assert.assertEquals(Arrays.asList("1:1", "2:2"), read("select ID, ID from OTHER order by ID"));
+        Assert.assertArrayEquals(manifestContent, Files.readAllBytes(manifest));
+    }
+
+    @Test(expected = Exception.class)
+    public void testRestoreWithoutSnapshot() throws Exception {
+        DbUnitExecutorUtil.execute(connection, DbUnitExecutorUtil.RESTORE, directory, new Properties());
+    }
+
+    private List<String> read(String sql) throws Exception {
+        List<String> result = new ArrayList<>();
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            while (rs.next()) {
+                result.add(rs.getInt(1) + ":" + rs.getString(2));
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.operation;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.lorislab.harvester.util.DbUnitExecutorUtil;
+
+/**
+ * The merge operation test.
+ *
+ * @author Andrej_Petras
+ */
+public class MergeOperationTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Connection connection;
+
+    private Path directory;
+
+    @Before
+    public void before() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:merge");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table PERSON (ID integer primary key, NAME varchar(50), SALARY decimal(10,2))");
+            statement.execute("create table ROLE (PERSON_ID integer references PERSON(ID), NAME varchar(50), LEVEL integer, primary key (PERSON_ID, NAME))");
+            statement.execute("insert into PERSON values (1, 'a', 1), (2, 'b', 2), (3, 'c', 3)");
+            statement.execute("insert into ROLE values (1, 'admin', 1), (2, 'user', 2)");
+        }
+        directory = folder.newFolder("merge").toPath();
+        Files.write(directory.resolve("table-ordering.txt"), Arrays.asList("PERSON", "ROLE"), StandardCharsets.UTF_8);
+        Files.write(directory.resolve("PERSON.csv"), Arrays.asList(
+                "ID,NAME,SALARY",
+                "2,b2,null",
+                "4,d,4.5"), StandardCharsets.UTF_8);
+        Files.write(directory.resolve("ROLE.csv"), Arrays.asList(
+                "PERSON_ID,NAME,LEVEL",
+                "1,admin,5",
+                "1,user,1",
+                "4,admin,2"), StandardCharsets.UTF_8);
+    }
+
+    @After
+    public void after() throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop all objects");
+        }
+        connection.close();
+    }
+
+    @Test
+    public void testMerge() throws Exception {
+        DbUnitExecutorUtil.execute(connection, "merge", directory, new Properties());
+        assertData();
+
+        DbUnitExecutorUtil.execute(connection, "merge", directory, new Properties());
+        assertData();
+    }
+
+    @Test
+    public void testParallelMerge() throws Exception {
+        Assert.assertTrue(DbUnitExecutorUtil.isParallelOperation("merge"));
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:merge");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            DbUnitExecutorUtil.executeParallel(dataSource, executor, 2, "merge", directory, new Properties());
+        } finally {
+            executor.shutdown();
+        }
+        assertData();
+    }
+
+    @Test
+    public void testMergeWithoutPrimaryKey() throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table LOG (ID integer, MESSAGE varchar(50))");
+        }
+        Files.write(directory.resolve("table-ordering.txt"), Arrays.asList("LOG"), StandardCharsets.UTF_8);
+        Files.write(directory.resolve("LOG.csv"), Arrays.asList("ID,MESSAGE", "1,x"), StandardCharsets.UTF_8);
+        try {
+            DbUnitExecutorUtil.execute(connection, "merge", directory, new Properties());
+            Assert.fail("The table without the primary key was merged");
+        } catch (Exception ex) {
+            // expected
+        }
+        Assert.assertEquals(0, read("select ID, MESSAGE from LOG").size());
+    }
+
+    private void assertData() throws Exception {
+        Assert.assertEquals(Arrays.asList("1:a:1.00", "2:b2:null", "3:c:3.00", "4:d:4.50"),
+                read("select ID, NAME, SALARY from PERSON order by ID"));
+        Assert.assertEquals(Arrays.asList("1:admin:5", "1:user:1", "2:user:2", "4:admin:2"),
+                read("select PERSON_ID, NAME, LEVEL from ROLE order by PERSON_ID, NAME"));
+    }
+
+    private List<String> read(String sql) throws Exception {
+        List<String> result = new ArrayList<>();
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            int count = rs.getMetaData().getColumnCount();
+            while (rs.next()) {
+                StringBuilder sb = new StringBuilder();
+                for (int i = 1; i <= count; i++) {
+                    if (i > 1) {
+                        sb.append(':');
+                    }
+                    sb.append(rs.getString(i));
+                }
+                result.add(sb.toString());
+            }
+        }
+        return result;
+    }
+}
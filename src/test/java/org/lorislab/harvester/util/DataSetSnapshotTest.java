@@ -0,0 +1,125 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.util;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.TimeZone;
+import org.dbunit.database.DatabaseConnection;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * The data set snapshot test.
+ *
+ * @author Andrej_Petras
+ */
+public class DataSetSnapshotTest {
+
+    private static final List<String> TABLES = Arrays.asList("PERSON");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Connection connection;
+
+    private Path directory;
+
+    @Before
+    public void before() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:snapshot");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table PERSON (ID integer primary key, NAME varchar(50), BORN timestamp, SALARY decimal(10,2))");
+        }
+        directory = folder.newFolder("snapshot").toPath();
+        Files.write(directory.resolve("table-ordering.txt"), TABLES, StandardCharsets.UTF_8);
+        Files.write(directory.resolve("PERSON.csv"), Arrays.asList("ID,NAME,BORN,SALARY", "1,a,2015-03-01 10:20:30.5,10.25", "2,b,null,null"), StandardCharsets.UTF_8);
+    }
+
+    @After
+    public void after() throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop all objects");
+        }
+        connection.close();
+    }
+
+    @Test
+    public void testCompileAndInsert() throws Exception {
+        DbUnitExecutorUtil.execute(connection, DbUnitExecutorUtil.COMPILE, directory, new Properties());
+        Assert.assertTrue(isValid());
+        DbUnitExecutorUtil.execute(connection, "insert", directory, new Properties());
+        Assert.assertEquals(Arrays.asList("1:a:2015-03-01 10:20:30.5:10.25", "2:b:null:null"), read());
+    }
+
+    @Test
+    public void testChangedFile() throws Exception {
+        DbUnitExecutorUtil.execute(connection, DbUnitExecutorUtil.COMPILE, directory, new Properties());
+        Files.write(directory.resolve("PERSON.csv"), Arrays.asList("ID,NAME,BORN,SALARY", "3,c,null,null"), StandardCharsets.UTF_8);
+        Assert.assertFalse(isValid());
+        DbUnitExecutorUtil.execute(connection, "insert", directory, new Properties());
+        Assert.assertEquals(Arrays.asList("3:c:null:null"), read());
+    }
+
+    @Test
+    public void testChangedColumnType() throws Exception {
+        DbUnitExecutorUtil.execute(connection, DbUnitExecutorUtil.COMPILE, directory, new Properties());
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("alter table PERSON alter column SALARY varchar(20)");
+        }
+        Assert.assertFalse(isValid());
+    }
+
+    @Test
+    public void testChangedTimeZone() throws Exception {
+        DbUnitExecutorUtil.execute(connection, DbUnitExecutorUtil.COMPILE, directory, new Properties());
+        TimeZone timeZone = TimeZone.getDefault();
+        try {
+            TimeZone.setDefault(TimeZone.getTimeZone("GMT".equals(timeZone.getID()) ? "Europe/Bratislava" : "GMT"));
+            Assert.assertFalse(isValid());
+        } finally {
+            TimeZone.setDefault(timeZone);
+        }
+        Assert.assertTrue(isValid());
+    }
+
+    private boolean isValid() throws Exception {
+        return DataSetSnapshot.isValid(new DatabaseConnection(connection).createDataSet(), directory, TABLES);
+    }
+
+    private List<String> read() throws Exception {
+        List<String> result = new ArrayList<>();
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery("select ID, NAME, BORN, SALARY from PERSON order by ID")) {
+            while (rs.next()) {
+                result.add(rs.getInt(1) + ":" + rs.getString(2) + ":" + rs.getTimestamp(3) + ":" + rs.getBigDecimal(4));
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.util;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * The incremental operation test.
+ *
+ * @author Andrej_Petras
+ */
+public class IncrementalOperationTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Connection connection;
+
+    private Path directory;
+
+    @Before
+    public void before() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:incremental");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table PERSON (ID integer primary key, NAME varchar(50))");
+            statement.execute("create table ADDRESS (ID integer primary key, CITY varchar(50))");
+        }
+        directory = folder.newFolder("incremental").toPath();
+        Files.write(directory.resolve("table-ordering.txt"), Arrays.asList("PERSON", "ADDRESS"), StandardCharsets.UTF_8);
+        Files.write(directory.resolve("PERSON.csv"), Arrays.asList("ID,NAME", "1,a", "2,b"), StandardCharsets.UTF_8);
+        Files.write(directory.resolve("ADDRESS.csv"), Arrays.asList("ID,CITY", "1,x"), StandardCharsets.UTF_8);
+    }
+
+    @After
+    public void after() throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop all objects");
+        }
+        connection.close();
+    }
+
+    @Test
+    public void testSkipUnchangedTables() throws Exception {
+        ImportResult result = DbUnitExecutorUtil.execute(connection, DbUnitExecutorUtil.INCREMENTAL, directory, new Properties());
+        Assert.assertTrue(result.getSkippedTables().isEmpty());
+        Assert.assertEquals(Arrays.asList("1:a", "2:b"), read("select ID, NAME from PERSON order by ID"));
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("update ADDRESS set CITY = 'manual'");
+        }
+        Files.write(directory.resolve("PERSON.csv"), Arrays.asList("ID,NAME", "1,a", "2,changed", "3,c"), StandardCharsets.UTF_8);
+        result = DbUnitExecutorUtil.execute(connection, DbUnitExecutorUtil.INCREMENTAL, directory, new Properties());
+        Assert.assertEquals(Collections.singletonList("ADDRESS"), result.getSkippedTables());
+        Assert.assertEquals(Arrays.asList("1:a", "2:changed", "3:c"), read("select ID, NAME from PERSON order by ID"));
+        Assert.assertEquals(Arrays.asList("1:manual"), read("select ID, CITY from ADDRESS order by ID"));
+    }
+
+    @Test
+    public void testRefreshKeepsRemovedRows() throws Exception {
+        DbUnitExecutorUtil.execute(connection, DbUnitExecutorUtil.INCREMENTAL, directory, new Properties());
+        Files.write(directory.resolve("PERSON.csv"), Arrays.asList("ID,NAME", "1,a"), StandardCharsets.UTF_8);
+        DbUnitExecutorUtil.execute(connection, DbUnitExecutorUtil.INCREMENTAL, directory, new Properties());
+        Assert.assertEquals(Arrays.asList("1:a", "2:b"), read("select ID, NAME from PERSON order by ID"));
+    }
+
+    @Test
+    public void testDiffRefreshDeletesRemovedRows() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty(HarvesterProperties.INCREMENTAL_OPERATION, "diffRefresh");
+        DbUnitExecutorUtil.execute(connection, DbUnitExecutorUtil.INCREMENTAL, directory, properties);
+        Files.write(directory.resolve("PERSON.csv"), Arrays.asList("ID,NAME", "1,a"), StandardCharsets.UTF_8);
+        DbUnitExecutorUtil.execute(connection, DbUnitExecutorUtil.INCREMENTAL, directory, properties);
+        Assert.assertEquals(Arrays.asList("1:a"), read("select ID, NAME from PERSON order by ID"));
+    }
+
+    private List<String> read(String sql) throws Exception {
+        List<String> result = new ArrayList<>();
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            while (rs.next()) {
+                result.add(rs.getInt(1) + ":" + rs.getString(2));
+            }
+        }
+        return result;
+    }
+}
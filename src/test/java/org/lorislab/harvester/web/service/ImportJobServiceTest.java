@@ -0,0 +1,261 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.web.service;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javax.enterprise.concurrent.ManagedThreadFactory;
+import javax.enterprise.event.Event;
+import javax.enterprise.util.TypeLiteral;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.lorislab.harvester.web.model.ImportJob;
+import org.lorislab.harvester.web.model.ImportJobStatus;
+
+/**
+ * The import job service test.
+ *
+ * @author Andrej_Petras
+ */
+public class ImportJobServiceTest {
+
+    private static final String DIRECTORY_PROPERTY_NAME = "org.lorislab.harvester.directory";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path root;
+
+    private ImportJobService service;
+
+    private BlockingImportService imports;
+
+    private RecordingEvent updates;
+
+    @Before
+    public void before() throws Exception {
+        root = folder.newFolder("root").toPath();
+        System.setProperty(DIRECTORY_PROPERTY_NAME, root.toString());
+        createDirectory("db1", "java:/A");
+        createDirectory("db2", "java:/A");
+        createDirectory("db3", null);
+        createDirectory("db4", null);
+
+        imports = new BlockingImportService();
+        updates = new RecordingEvent();
+        service = new ImportJobService();
+        inject(service, "service", imports);
+        inject(service, "openEvents", new RecordingEvent());
+        inject(service, "closeEvents", new RecordingEvent());
+        inject(service, "updateEvents", updates);
+        inject(service, "threadFactory", (ManagedThreadFactory) Thread::new);
+        service.init();
+    }
+
+    @After
+    public void after() {
+        imports.releaseAll();
+        service.destroy();
+        System.clearProperty(DIRECTORY_PROPERTY_NAME);
+    }
+
+    @Test
+    public void testLockJndi() throws Exception {
+        ImportJob job1 = service.submit("insert", Arrays.asList("db1"), 0);
+        ImportJob job2 = service.submit("insert", Arrays.asList("db2"), 0);
+        ImportJob job3 = service.submit("insert", Arrays.asList("db3"), 0);
+        imports.awaitStarted(job1);
+        imports.awaitStarted(job3);
+        Assert.assertEquals(ImportJobStatus.QUEUED, job2.getStatus());
+
+        imports.release(job1);
+        imports.awaitStarted(job2);
+        imports.release(job2);
+        imports.release(job3);
+        awaitStatus(job2, ImportJobStatus.FINISHED);
+        awaitStatus(job3, ImportJobStatus.FINISHED);
+    }
+
+    @Test
+    public void testLockDirectoryWithoutJndi() throws Exception {
+        ImportJob job1 = service.submit("insert", Arrays.asList("db3"), 0);
+        ImportJob job2 = service.submit("insert", Arrays.asList("db3"), 0);
+        ImportJob job3 = service.submit("insert", Arrays.asList("db4"), 0);
+        imports.awaitStarted(job1);
+        imports.awaitStarted(job3);
+        Assert.assertEquals(ImportJobStatus.QUEUED, job2.getStatus());
+
+        imports.release(job1);
+        imports.awaitStarted(job2);
+        imports.release(job2);
+        imports.release(job3);
+        awaitStatus(job2, ImportJobStatus.FINISHED);
+    }
+
+    @Test
+    public void testDirectoriesResolvedAtSubmit() throws Exception {
+        ImportJob job1 = service.submit("insert", Arrays.asList("db1"), 0);
+        imports.awaitStarted(job1);
+        ImportJob job2 = service.submit("insert", Collections.emptyList(), 0);
+        Assert.assertEquals(ImportJobStatus.QUEUED, job2.getStatus());
+        createDirectory("db5", null);
+
+        imports.release(job1);
+        imports.awaitStarted(job2);
+        Assert.assertEquals(Arrays.asList("db1", "db2", "db3", "db4"), imports.getDirectories(job2));
+        imports.release(job2);
+        awaitStatus(job2, ImportJobStatus.FINISHED);
+    }
+
+    @Test
+    public void testCancelQueuedJob() throws Exception {
+        ImportJob job1 = service.submit("insert", Arrays.asList("db1"), 0);
+        ImportJob job2 = service.submit("insert", Arrays.asList("db1"), 0);
+        imports.awaitStarted(job1);
+        Assert.assertTrue(service.cancel(job2.getId()));
+        Assert.assertEquals(ImportJobStatus.CANCELLED, job2.getStatus());
+        imports.release(job1);
+        awaitStatus(job1, ImportJobStatus.FINISHED);
+        Assert.assertFalse(imports.isStarted(job2));
+    }
+
+    @Test
+    public void testJobsMessages() throws Exception {
+        ImportJob job = service.submit("insert", Arrays.asList("db1"), 0);
+        imports.awaitStarted(job);
+        imports.release(job);
+        awaitStatus(job, ImportJobStatus.FINISHED);
+        // submit, start and finish
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (updates.messages.size() < 3 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(Arrays.asList(ImportJobService.JOBS_MESSAGE, ImportJobService.JOBS_MESSAGE, ImportJobService.JOBS_MESSAGE), updates.messages);
+    }
+
+    @Test(expected = ImportJobException.class)
+    public void testUnknownDirectory() throws Exception {
+        service.submit("insert", Arrays.asList("unknown"), 0);
+    }
+
+    private void createDirectory(String name, String jndi) throws Exception {
+        Path directory = Files.createDirectory(root.resolve(name));
+        String content = jndi == null ? "" : "jndi=" + jndi;
+        Files.write(directory.resolve("harvester.properties"), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void awaitStatus(ImportJob job, ImportJobStatus status) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (job.getStatus() != status && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(status, job.getStatus());
+    }
+
+    private static void inject(Object target, String name, Object value) throws Exception {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    /**
+     * The directory import service which blocks the job until it is
+     * released.
+     */
+    private static class BlockingImportService extends DirectoryDataImportExecutorService {
+
+        private final Map<Long, CountDownLatch> started = new ConcurrentHashMap<>();
+
+        private final Map<Long, CountDownLatch> released = new ConcurrentHashMap<>();
+
+        private final Map<Long, List<String>> directories = new ConcurrentHashMap<>();
+
+        @Override
+        public void executeJob(ImportJob job, List<Path> entries) throws InterruptedException {
+            directories.put(job.getId(), entries.stream().map(item -> item.getFileName().toString()).sorted().collect(Collectors.toList()));
+            latch(started, job).countDown();
+            latch(released, job).await();
+        }
+
+        void awaitStarted(ImportJob job) throws InterruptedException {
+            Assert.assertTrue("The job " + job.getId() + " is not started", latch(started, job).await(5, TimeUnit.SECONDS));
+        }
+
+        boolean isStarted(ImportJob job) {
+            return latch(started, job).getCount() == 0;
+        }
+
+        void release(ImportJob job) {
+            latch(released, job).countDown();
+        }
+
+        void releaseAll() {
+            released.values().forEach(CountDownLatch::countDown);
+        }
+
+        List<String> getDirectories(ImportJob job) {
+            return directories.get(job.getId());
+        }
+
+        private static CountDownLatch latch(Map<Long, CountDownLatch> latches, ImportJob job) {
+            return latches.computeIfAbsent(job.getId(), id -> new CountDownLatch(1));
+        }
+    }
+
+    /**
+     * The event which records the fired messages.
+     */
+    private static class RecordingEvent implements Event<String> {
+
+        private final List<String> messages = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void fire(String event) {
+            messages.add(event);
+        }
+
+        @Override
+        public Event<String> select(Annotation... qualifiers) {
+            return this;
+        }
+
+        @Override
+        public <U extends String> Event<U> select(Class<U> subtype, Annotation... qualifiers) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <U extends String> Event<U> select(TypeLiteral<U> subtype, Annotation... qualifiers) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
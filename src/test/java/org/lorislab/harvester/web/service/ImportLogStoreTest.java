@@ -0,0 +1,75 @@
+/*
+ * Copyright 2015 Andrej_Petras.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.lorislab.harvester.web.service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Assert;
+import org.junit.Test;
+import org.lorislab.harvester.web.model.ImportLogItem;
+
+/**
+ * The import log store test.
+ *
+ * @author Andrej_Petras
+ */
+public class ImportLogStoreTest {
+
+    @Test
+    public void testPaging() {
+        ImportLogStore store = create(5);
+        Assert.assertEquals(5, store.getLastId());
+        Assert.assertEquals(Arrays.asList(1L, 2L), ids(store.getAfter(0, 2)));
+        Assert.assertEquals(Arrays.asList(3L, 4L), ids(store.getAfter(2, 2)));
+        Assert.assertEquals(Arrays.asList(5L), ids(store.getAfter(4, 2)));
+        Assert.assertTrue(store.getAfter(5, 2).isEmpty());
+        Assert.assertEquals(Arrays.asList(2L, 3L), ids(store.getBefore(4, 2)));
+        Assert.assertEquals(Arrays.asList(1L), ids(store.getBefore(2, 2)));
+        Assert.assertTrue(store.getBefore(1, 2).isEmpty());
+        Assert.assertEquals(Arrays.asList(4L, 5L), ids(store.getLast(2)));
+    }
+
+    @Test
+    public void testEmpty() {
+        ImportLogStore store = new ImportLogStore();
+        Assert.assertEquals(0, store.getLastId());
+        Assert.assertTrue(store.getAfter(0, 10).isEmpty());
+        Assert.assertTrue(store.getLast(10).isEmpty());
+    }
+
+    @Test
+    public void testOverwrittenItems() {
+        ImportLogStore store = create(ImportLogStore.CAPACITY + 10);
+        long first = 11;
+        Assert.assertEquals(Arrays.asList(first, first + 1), ids(store.getAfter(0, 2)));
+        Assert.assertEquals(Arrays.asList(first), ids(store.getBefore(first + 1, 5)));
+        Assert.assertEquals(ImportLogStore.CAPACITY, store.getLast(Integer.MAX_VALUE).size());
+        Assert.assertEquals(Arrays.asList(ImportLogStore.CAPACITY + 10L), ids(store.getLast(1)));
+    }
+
+    private static ImportLogStore create(int count) {
+        ImportLogStore store = new ImportLogStore();
+        for (int i = 0; i < count; i++) {
+            store.add(new ImportLogItem());
+        }
+        return store;
+    }
+
+    private static List<Long> ids(List<ImportLogItem> items) {
+        return items.stream().map(ImportLogItem::getId).collect(Collectors.toList());
+    }
+}